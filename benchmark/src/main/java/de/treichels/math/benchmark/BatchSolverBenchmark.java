@@ -0,0 +1,90 @@
+package de.treichels.math.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.treichels.math.BatchSolver;
+import de.treichels.math.Matrix;
+
+/**
+ * Solve many tiny systems with the {@link BatchSolver} and one by one with
+ * {@link Matrix#solve()}. The score is the time per system.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchSolverBenchmark {
+	private static final int COUNT = 10000;
+
+	@Param({ "3", "4", "5", "6", "8" })
+	public int size;
+
+	private BatchSolver solver;
+	private double[] systems;
+	private double[] data;
+	private double[][][] matrices;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(42);
+		solver = new BatchSolver(size);
+		systems = new double[size * (size + 1) * COUNT];
+		data = new double[systems.length];
+		matrices = new double[COUNT][size][size + 1];
+
+		for (int system = 0; system < COUNT; system++) {
+			for (int row = 0; row < size; row++) {
+				for (int column = 0; column <= size; column++) {
+					final double value = random.nextDouble() + (row == column ? size : 0);
+					systems[BatchSolver.index(size, COUNT, system, row, column)] = value;
+					matrices[system][row][column] = value;
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public double[] batch() {
+		System.arraycopy(systems, 0, data, 0, systems.length);
+		solver.solve(data, COUNT);
+		return data;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public double matrix() {
+		double sum = 0;
+
+		for (final double[][] system : matrices) {
+			final double[][] copy = new double[size][];
+			for (int row = 0; row < size; row++) {
+				copy[row] = system[row].clone();
+			}
+
+			final Matrix matrix = new Matrix(copy);
+			matrix.solve();
+			sum += matrix.get(0, size);
+		}
+
+		return sum;
+	}
+}
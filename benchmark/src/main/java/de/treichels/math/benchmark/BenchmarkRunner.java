@@ -0,0 +1,41 @@
+package de.treichels.math.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Run all benchmarks and write the results as JSON.
+ * </p>
+ *
+ * <pre>
+ * mvn -pl gauss-jordan,benchmark -am package
+ * java -jar benchmark/target/benchmarks.jar [jmh options]
+ * </pre>
+ *
+ * The results are written to <code>jmh-result.json</code> unless another file
+ * is given with <code>-rff</code>. All other JMH command line options (e.g.
+ * <code>-p size=4,64</code> or a benchmark regexp) can be used as well.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class BenchmarkRunner {
+	public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+		final CommandLineOptions commandLine = new CommandLineOptions(args);
+		final OptionsBuilder builder = new OptionsBuilder();
+
+		if (commandLine.getIncludes().isEmpty()) {
+			builder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		}
+
+		final Options options = builder.parent(commandLine).resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+				.result(commandLine.getResult().orElse("jmh-result.json")).build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,64 @@
+package de.treichels.math.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Baseline for {@link MatrixSolveBenchmark}: solve the same equation systems
+ * with the commons-math {@link LUDecomposition}. It does not depend on the
+ * storage type, so it is only parameterized by the size.
+ * <p>
+ * Like in {@link MatrixSolveBenchmark}, the copy of the coefficients is
+ * included in the measured time.
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommonsMathSolveBenchmark {
+	@Param({ "4", "16", "64", "256", "1024", "4096" })
+	public int size;
+
+	private double[][] coefficients;
+	private double[] constants;
+
+	@Benchmark
+	public RealVector commonsMathLU() {
+		final RealMatrix a = new Array2DRowRealMatrix(coefficients, true);
+		return new LUDecomposition(a).getSolver().solve(new ArrayRealVector(constants, false));
+	}
+
+	@Setup
+	public void setup() {
+		final double[][] data = MatrixSolveBenchmark.createSystem(size, 42);
+
+		coefficients = new double[size][];
+		constants = new double[size];
+		for (int row = 0; row < size; row++) {
+			coefficients[row] = Arrays.copyOf(data[row], size);
+			constants[row] = data[row][size];
+		}
+	}
+}
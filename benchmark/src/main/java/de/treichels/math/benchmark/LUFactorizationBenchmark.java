@@ -0,0 +1,57 @@
+package de.treichels.math.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.treichels.math.LUFactorization;
+import de.treichels.math.Matrix;
+
+/**
+ * Factorize a random matrix with different block sizes. A block size of
+ * 100000 is the unblocked algorithm for all sizes.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LUFactorizationBenchmark {
+	@Param({ "64", "256", "1024", "4096" })
+	public int size;
+
+	@Param({ "32", "64", "128", "100000" })
+	public int blockSize;
+
+	private Matrix matrix;
+
+	@Setup
+	public void setup() {
+		final double[][] data = MatrixSolveBenchmark.createSystem(size, 42);
+		matrix = new Matrix(size, size);
+
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				matrix.set(row, column, data[row][column]);
+			}
+		}
+	}
+
+	@Benchmark
+	public LUFactorization factorize() {
+		return new LUFactorization(matrix, blockSize);
+	}
+}
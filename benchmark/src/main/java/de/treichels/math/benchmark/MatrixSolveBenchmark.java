@@ -0,0 +1,104 @@
+package de.treichels.math.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.treichels.math.Matrix;
+import de.treichels.math.Pivoting;
+import de.treichels.math.StorageType;
+
+/**
+ * Solve a random, diagonally dominant equation system with
+ * {@link Matrix#solve()} and its variants. {@link CommonsMathSolveBenchmark}
+ * solves the same systems as a baseline.
+ * <p>
+ * {@link Matrix#solve()} works in place, so each invocation solves a fresh copy
+ * of the matrix. The O(n<sup>2</sup>) copy is negligible compared to the
+ * O(n<sup>3</sup>) elimination, but it is included in the measured time.
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixSolveBenchmark {
+	@Param({ "4", "16", "64", "256", "1024", "4096" })
+	public int size;
+
+	@Param({ "ARRAY", "FLAT", "DIRECT" })
+	public StorageType storage;
+
+	private Matrix matrix;
+
+	/**
+	 * Create a random, diagonally dominant (and therefore solvable) augmented
+	 * matrix.
+	 *
+	 * @param size
+	 * @param seed
+	 * @return the matrix data
+	 */
+	static double[][] createSystem(final int size, final long seed) {
+		final Random random = new Random(seed);
+		final double[][] data = new double[size][size + 1];
+
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column <= size; column++) {
+				data[row][column] = random.nextDouble() * 2 - 1;
+			}
+
+			data[row][row] += size;
+		}
+
+		return data;
+	}
+
+	@Setup
+	public void setup() {
+		matrix = new Matrix(new Matrix(createSystem(size, 42)), storage);
+	}
+
+	@Benchmark
+	public Matrix solve() {
+		final Matrix copy = new Matrix(matrix);
+		copy.solve();
+		return copy;
+	}
+
+	@Benchmark
+	public Matrix solveMixedPrecision() {
+		final Matrix copy = new Matrix(matrix);
+		copy.solveMixedPrecision();
+		return copy;
+	}
+
+	@Benchmark
+	public Matrix solveOutOfCore() {
+		final Matrix copy = new Matrix(matrix);
+		copy.solveOutOfCore();
+		return copy;
+	}
+
+	@Benchmark
+	public Matrix solveParallel() {
+		final Matrix copy = new Matrix(matrix);
+		copy.solveParallel(Pivoting.NONE);
+		return copy;
+	}
+}
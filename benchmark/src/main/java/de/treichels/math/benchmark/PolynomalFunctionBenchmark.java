@@ -0,0 +1,70 @@
+package de.treichels.math.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.treichels.math.PolynomalFunction;
+
+/**
+ * Evaluate a polynomal function for single values and in bulk.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolynomalFunctionBenchmark {
+	@Param({ "3", "10" })
+	public int degree;
+
+	private PolynomalFunction function;
+	private double[] xs;
+	private double[] out;
+	private double x;
+
+	@Setup
+	public void setup() {
+		final double[] coefficients = new double[degree + 1];
+		for (int i = 0; i <= degree; i++) {
+			coefficients[i] = 1d / (i + 1);
+		}
+
+		function = new PolynomalFunction(coefficients);
+		xs = new double[4096];
+		out = new double[xs.length];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = i / 4096d;
+		}
+		x = 0.75;
+	}
+
+	@Benchmark
+	public double evaluate() {
+		return function.evaluate(x);
+	}
+
+	@Benchmark
+	public double[] evaluateArray() {
+		function.evaluate(xs, out);
+		return out;
+	}
+
+	@Benchmark
+	public double evaluateCompensated() {
+		return function.evaluateCompensated(x);
+	}
+}
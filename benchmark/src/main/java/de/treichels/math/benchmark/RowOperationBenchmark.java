@@ -0,0 +1,65 @@
+package de.treichels.math.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.treichels.math.Matrix;
+import de.treichels.math.StorageType;
+
+/**
+ * The row operations used by {@link Matrix#solve()}.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowOperationBenchmark {
+	@Param({ "4", "64", "1024" })
+	public int size;
+
+	@Param({ "ARRAY", "FLAT" })
+	public StorageType storage;
+
+	private Matrix matrix;
+
+	@Setup
+	public void setup() {
+		matrix = new Matrix(new Matrix(MatrixSolveBenchmark.createSystem(size, 42)), storage);
+	}
+
+	@Benchmark
+	public Matrix add() {
+		// alternating sign keeps the values bounded
+		matrix.add(0, 1, 1);
+		matrix.add(0, 1, -1);
+		return matrix;
+	}
+
+	@Benchmark
+	public Matrix multiply() {
+		matrix.multiply(1, 2);
+		matrix.multiply(1, 0.5);
+		return matrix;
+	}
+
+	@Benchmark
+	public Matrix swap() {
+		matrix.swap(0, size - 1);
+		return matrix;
+	}
+}
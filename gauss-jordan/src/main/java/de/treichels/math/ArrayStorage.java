@@ -0,0 +1,96 @@
+package de.treichels.math;
+
+/**
+ * {@link Storage} with one <code>double[]</code> per row.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+class ArrayStorage extends Storage {
+	final double[][] data;
+
+	ArrayStorage(final double[][] data) {
+		this.data = data;
+	}
+
+	@Override
+	void add(final int row1, final int row2, final double factor) {
+		final double[] source = data[row1];
+		final double[] target = data[row2];
+		final int colums = target.length;
+
+		for (int column = 0; column < colums; column++) {
+			target[column] += source[column] * factor;
+		}
+	}
+
+	@Override
+	double get(final int row, final int column) {
+		return data[row][column];
+	}
+
+	@Override
+	int getColumns() {
+		return data[0].length;
+	}
+
+	@Override
+	void getRow(final int row, final double[] result) {
+		System.arraycopy(data[row], 0, result, 0, data[row].length);
+	}
+
+	@Override
+	int getRows() {
+		return data.length;
+	}
+
+	@Override
+	StorageType getType() {
+		return StorageType.ARRAY;
+	}
+
+	@Override
+	void multiply(final int row, final double factor) {
+		final double[] target = data[row];
+		final int colums = target.length;
+
+		for (int column = 0; column < colums; column++) {
+			target[column] *= factor;
+		}
+	}
+
+	@Override
+	void set(final int row, final int column, final double value) {
+		data[row][column] = value;
+	}
+
+	@Override
+	void setRow(final int row, final double[] values) {
+		System.arraycopy(values, 0, data[row], 0, data[row].length);
+	}
+
+	/**
+	 * Swap the contents of the rows, not the row arrays, so row arrays obtained
+	 * from {@link Matrix#getData()} keep their position in the matrix.
+	 */
+	@Override
+	void swap(final int row1, final int row2) {
+		final double[] source = data[row1];
+		final double[] target = data[row2];
+		final int colums = target.length;
+
+		for (int column = 0; column < colums; column++) {
+			final double temp = source[column];
+			source[column] = target[column];
+			target[column] = temp;
+		}
+	}
+
+	@Override
+	void swapColumns(final int column1, final int column2) {
+		for (final double[] row : data) {
+			final double temp = row[column1];
+			row[column1] = row[column2];
+			row[column2] = temp;
+		}
+	}
+}
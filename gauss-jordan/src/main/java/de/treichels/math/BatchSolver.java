@@ -0,0 +1,475 @@
+package de.treichels.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * Solve many small equation systems of the same size at once.
+ * </p>
+ *
+ * All augmented <code>n x (n+1)</code> matrices are packed into a single
+ * <code>double[]</code> in structure-of-arrays layout: the same cell of all
+ * systems is stored next to each other, i.e. cell <code>(row, column)</code> of
+ * system <code>s</code> is stored at
+ *
+ * <pre>
+ * (row * (n + 1) + column) * count + s
+ * </pre>
+ *
+ * (see {@link #index(int, int, int, int, int)}). All loops run over the
+ * systems in their innermost level, so they can be vectorized by the JIT
+ * compiler and there is no per-system object or call overhead.
+ * <p>
+ * Systems with 2 or 3 unknowns are solved with unrolled kernels using Cramer's
+ * rule, systems with 4 or 5 unknowns with unrolled Gaussian elimination that
+ * keeps each system in local variables. Larger systems use Gauss-Jordan
+ * elimination with partial pivoting over the whole chunk. Unrolled kernels for
+ * 6 to 8 unknowns were measured with <code>BatchSolverBenchmark</code> and
+ * were not faster: the matrix no longer fits into the registers and the spilled
+ * locals cost as much as the vectorized loops.
+ * After solving, the last column of each system contains its solution, the
+ * other columns are undefined. The solution of a system that could not be
+ * solved is set to {@link Double#NaN}.
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class BatchSolver {
+	/**
+	 * Default number of systems solved together, so that their data stays in
+	 * the L2 cache during elimination.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+
+	/**
+	 * Solve a range of systems, split into chunks that are solved in parallel.
+	 */
+	private final class SolverTask extends RecursiveTask<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		private final double[] data;
+		private final int count;
+		private final int from;
+		private final int to;
+
+		private SolverTask(final double[] data, final int count, final int from, final int to) {
+			this.data = data;
+			this.count = count;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (to - from <= chunkSize) {
+				return solve(data, count, from, to);
+			}
+
+			final int middle = from + (to - from) / 2;
+			final SolverTask first = new SolverTask(data, count, from, middle);
+			final SolverTask second = new SolverTask(data, count, middle, to);
+
+			first.fork();
+			final int failed = second.compute();
+			return failed + first.join();
+		}
+	}
+
+	/**
+	 * Get the array index of a cell.
+	 *
+	 * @param size
+	 *            number of unknowns per system
+	 * @param count
+	 *            number of systems
+	 * @param system
+	 * @param row
+	 * @param column
+	 * @return the index of the cell in the data array
+	 */
+	public static int index(final int size, final int count, final int system, final int row, final int column) {
+		return (row * (size + 1) + column) * count + system;
+	}
+
+	private final int size;
+	private final int columns;
+	private final int chunkSize;
+
+	/**
+	 * Construct a solver for systems with the given number of unknowns.
+	 *
+	 * @param size
+	 *            number of unknowns (rows) per system
+	 */
+	public BatchSolver(final int size) {
+		this(size, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Construct a solver for systems with the given number of unknowns.
+	 *
+	 * @param size
+	 *            number of unknowns (rows) per system
+	 * @param chunkSize
+	 *            number of systems solved together
+	 */
+	public BatchSolver(final int size, final int chunkSize) {
+		if (size < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		this.size = size;
+		this.chunkSize = chunkSize;
+		columns = size + 1;
+	}
+
+	/**
+	 * Get the solution of a system after {@link #solve(double[], int)}.
+	 *
+	 * @param data
+	 * @param count
+	 *            number of systems
+	 * @param system
+	 * @param row
+	 * @return the value of the unknown x<sub>row</sub>
+	 */
+	public double getSolution(final double[] data, final int count, final int system, final int row) {
+		return data[index(size, count, system, row, size)];
+	}
+
+	/**
+	 * Get the number of unknowns per system.
+	 *
+	 * @return the number of rows
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Solve all systems in the current thread.
+	 *
+	 * @param data
+	 *            the packed systems
+	 * @param count
+	 *            number of systems
+	 * @return the number of systems that could not be solved
+	 */
+	public int solve(final double[] data, final int count) {
+		checkDimensions(data, count);
+
+		int failed = 0;
+		for (int from = 0; from < count; from += chunkSize) {
+			failed += solve(data, count, from, Math.min(count, from + chunkSize));
+		}
+
+		return failed;
+	}
+
+	/**
+	 * Solve all systems in parallel, one chunk per task.
+	 *
+	 * @param data
+	 *            the packed systems
+	 * @param count
+	 *            number of systems
+	 * @param pool
+	 *            the pool to run the tasks in
+	 * @return the number of systems that could not be solved
+	 */
+	public int solve(final double[] data, final int count, final ForkJoinPool pool) {
+		checkDimensions(data, count);
+		return pool.invoke(new SolverTask(data, count, 0, count));
+	}
+
+	private void checkDimensions(final double[] data, final int count) {
+		if (count < 0 || data.length != size * columns * count) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+	}
+
+	/**
+	 * Solve the systems <code>from</code> to <code>to - 1</code>.
+	 *
+	 * @return the number of systems that could not be solved
+	 */
+	private int solve(final double[] data, final int count, final int from, final int to) {
+		switch (size) {
+		case 1:
+			solve1(data, count, from, to);
+			break;
+
+		case 2:
+			solve2(data, count, from, to);
+			break;
+
+		case 3:
+			solve3(data, count, from, to);
+			break;
+
+		case 4:
+			solve4(data, count, from, to);
+			break;
+
+		case 5:
+			solve5(data, count, from, to);
+			break;
+
+		default:
+			solveN(data, count, from, to);
+		}
+
+		// mark systems without a finite solution as unsolvable
+		int failed = 0;
+		for (int system = from; system < to; system++) {
+			boolean finite = true;
+			for (int row = 0; row < size; row++) {
+				final double x = data[(row * columns + size) * count + system];
+				finite &= !Double.isNaN(x) && !Double.isInfinite(x);
+			}
+
+			if (!finite) {
+				failed++;
+				for (int row = 0; row < size; row++) {
+					data[(row * columns + size) * count + system] = Double.NaN;
+				}
+			}
+		}
+
+		return failed;
+	}
+
+	private void solve1(final double[] data, final int count, final int from, final int to) {
+		for (int s = from; s < to; s++) {
+			data[count + s] /= data[s];
+		}
+	}
+
+	private void solve2(final double[] data, final int count, final int from, final int to) {
+		final int a00 = 0, a01 = count, b0 = 2 * count;
+		final int a10 = 3 * count, a11 = 4 * count, b1 = 5 * count;
+
+		for (int s = from; s < to; s++) {
+			final double det = data[a00 + s] * data[a11 + s] - data[a01 + s] * data[a10 + s];
+			final double x0 = (data[b0 + s] * data[a11 + s] - data[a01 + s] * data[b1 + s]) / det;
+			final double x1 = (data[a00 + s] * data[b1 + s] - data[b0 + s] * data[a10 + s]) / det;
+			data[b0 + s] = x0;
+			data[b1 + s] = x1;
+		}
+	}
+
+	private void solve3(final double[] data, final int count, final int from, final int to) {
+		final int a00 = 0, a01 = count, a02 = 2 * count, b0 = 3 * count;
+		final int a10 = 4 * count, a11 = 5 * count, a12 = 6 * count, b1 = 7 * count;
+		final int a20 = 8 * count, a21 = 9 * count, a22 = 10 * count, b2 = 11 * count;
+
+		for (int s = from; s < to; s++) {
+			final double m00 = data[a00 + s], m01 = data[a01 + s], m02 = data[a02 + s], v0 = data[b0 + s];
+			final double m10 = data[a10 + s], m11 = data[a11 + s], m12 = data[a12 + s], v1 = data[b1 + s];
+			final double m20 = data[a20 + s], m21 = data[a21 + s], m22 = data[a22 + s], v2 = data[b2 + s];
+
+			// cofactors of the first column
+			final double c00 = m11 * m22 - m12 * m21;
+			final double c10 = m02 * m21 - m01 * m22;
+			final double c20 = m01 * m12 - m02 * m11;
+			final double det = m00 * c00 + m10 * c10 + m20 * c20;
+
+			data[b0 + s] = (v0 * c00 + v1 * c10 + v2 * c20) / det;
+			data[b1 + s] = (m00 * (v1 * m22 - m12 * v2) + m10 * (m02 * v2 - v0 * m22) + m20 * (v0 * m12 - m02 * v1)) / det;
+			data[b2 + s] = (m00 * (m11 * v2 - v1 * m21) + m10 * (v0 * m21 - m01 * v2) + m20 * (m01 * v1 - v0 * m11)) / det;
+		}
+	}
+
+	private void solve4(final double[] data, final int count, final int from, final int to) {
+		for (int s = from; s < to; s++) {
+			double m00 = data[s], m01 = data[count + s], m02 = data[2 * count + s], m03 = data[3 * count + s], v0 = data[4 * count + s];
+			double m10 = data[5 * count + s], m11 = data[6 * count + s], m12 = data[7 * count + s], m13 = data[8 * count + s], v1 = data[9 * count + s];
+			double m20 = data[10 * count + s], m21 = data[11 * count + s], m22 = data[12 * count + s], m23 = data[13 * count + s], v2 = data[14 * count + s];
+			double m30 = data[15 * count + s], m31 = data[16 * count + s], m32 = data[17 * count + s], m33 = data[18 * count + s], v3 = data[19 * count + s];
+			double t;
+
+			// column 0: move the largest pivot up, then eliminate
+			if (Math.abs(m10) > Math.abs(m00)) {
+				t = m00; m00 = m10; m10 = t; t = m01; m01 = m11; m11 = t; t = m02; m02 = m12; m12 = t; t = m03; m03 = m13; m13 = t; t = v0; v0 = v1; v1 = t;
+			}
+			if (Math.abs(m20) > Math.abs(m00)) {
+				t = m00; m00 = m20; m20 = t; t = m01; m01 = m21; m21 = t; t = m02; m02 = m22; m22 = t; t = m03; m03 = m23; m23 = t; t = v0; v0 = v2; v2 = t;
+			}
+			if (Math.abs(m30) > Math.abs(m00)) {
+				t = m00; m00 = m30; m30 = t; t = m01; m01 = m31; m31 = t; t = m02; m02 = m32; m32 = t; t = m03; m03 = m33; m33 = t; t = v0; v0 = v3; v3 = t;
+			}
+			t = m10 / m00;
+			m11 -= t * m01; m12 -= t * m02; m13 -= t * m03; v1 -= t * v0;
+			t = m20 / m00;
+			m21 -= t * m01; m22 -= t * m02; m23 -= t * m03; v2 -= t * v0;
+			t = m30 / m00;
+			m31 -= t * m01; m32 -= t * m02; m33 -= t * m03; v3 -= t * v0;
+
+			// column 1: move the largest pivot up, then eliminate
+			if (Math.abs(m21) > Math.abs(m11)) {
+				t = m11; m11 = m21; m21 = t; t = m12; m12 = m22; m22 = t; t = m13; m13 = m23; m23 = t; t = v1; v1 = v2; v2 = t;
+			}
+			if (Math.abs(m31) > Math.abs(m11)) {
+				t = m11; m11 = m31; m31 = t; t = m12; m12 = m32; m32 = t; t = m13; m13 = m33; m33 = t; t = v1; v1 = v3; v3 = t;
+			}
+			t = m21 / m11;
+			m22 -= t * m12; m23 -= t * m13; v2 -= t * v1;
+			t = m31 / m11;
+			m32 -= t * m12; m33 -= t * m13; v3 -= t * v1;
+
+			// column 2: move the largest pivot up, then eliminate
+			if (Math.abs(m32) > Math.abs(m22)) {
+				t = m22; m22 = m32; m32 = t; t = m23; m23 = m33; m33 = t; t = v2; v2 = v3; v3 = t;
+			}
+			t = m32 / m22;
+			m33 -= t * m23; v3 -= t * v2;
+
+			// back substitution
+			v3 /= m33;
+			v2 = (v2 - m23 * v3) / m22;
+			v1 = (v1 - m12 * v2 - m13 * v3) / m11;
+			v0 = (v0 - m01 * v1 - m02 * v2 - m03 * v3) / m00;
+
+			data[4 * count + s] = v0;
+			data[9 * count + s] = v1;
+			data[14 * count + s] = v2;
+			data[19 * count + s] = v3;
+		}
+	}
+
+	private void solve5(final double[] data, final int count, final int from, final int to) {
+		for (int s = from; s < to; s++) {
+			double m00 = data[s], m01 = data[count + s], m02 = data[2 * count + s], m03 = data[3 * count + s], m04 = data[4 * count + s], v0 = data[5 * count + s];
+			double m10 = data[6 * count + s], m11 = data[7 * count + s], m12 = data[8 * count + s], m13 = data[9 * count + s], m14 = data[10 * count + s], v1 = data[11 * count + s];
+			double m20 = data[12 * count + s], m21 = data[13 * count + s], m22 = data[14 * count + s], m23 = data[15 * count + s], m24 = data[16 * count + s], v2 = data[17 * count + s];
+			double m30 = data[18 * count + s], m31 = data[19 * count + s], m32 = data[20 * count + s], m33 = data[21 * count + s], m34 = data[22 * count + s], v3 = data[23 * count + s];
+			double m40 = data[24 * count + s], m41 = data[25 * count + s], m42 = data[26 * count + s], m43 = data[27 * count + s], m44 = data[28 * count + s], v4 = data[29 * count + s];
+			double t;
+
+			// column 0: move the largest pivot up, then eliminate
+			if (Math.abs(m10) > Math.abs(m00)) {
+				t = m00; m00 = m10; m10 = t; t = m01; m01 = m11; m11 = t; t = m02; m02 = m12; m12 = t; t = m03; m03 = m13; m13 = t; t = m04; m04 = m14; m14 = t; t = v0; v0 = v1; v1 = t;
+			}
+			if (Math.abs(m20) > Math.abs(m00)) {
+				t = m00; m00 = m20; m20 = t; t = m01; m01 = m21; m21 = t; t = m02; m02 = m22; m22 = t; t = m03; m03 = m23; m23 = t; t = m04; m04 = m24; m24 = t; t = v0; v0 = v2; v2 = t;
+			}
+			if (Math.abs(m30) > Math.abs(m00)) {
+				t = m00; m00 = m30; m30 = t; t = m01; m01 = m31; m31 = t; t = m02; m02 = m32; m32 = t; t = m03; m03 = m33; m33 = t; t = m04; m04 = m34; m34 = t; t = v0; v0 = v3; v3 = t;
+			}
+			if (Math.abs(m40) > Math.abs(m00)) {
+				t = m00; m00 = m40; m40 = t; t = m01; m01 = m41; m41 = t; t = m02; m02 = m42; m42 = t; t = m03; m03 = m43; m43 = t; t = m04; m04 = m44; m44 = t; t = v0; v0 = v4; v4 = t;
+			}
+			t = m10 / m00;
+			m11 -= t * m01; m12 -= t * m02; m13 -= t * m03; m14 -= t * m04; v1 -= t * v0;
+			t = m20 / m00;
+			m21 -= t * m01; m22 -= t * m02; m23 -= t * m03; m24 -= t * m04; v2 -= t * v0;
+			t = m30 / m00;
+			m31 -= t * m01; m32 -= t * m02; m33 -= t * m03; m34 -= t * m04; v3 -= t * v0;
+			t = m40 / m00;
+			m41 -= t * m01; m42 -= t * m02; m43 -= t * m03; m44 -= t * m04; v4 -= t * v0;
+
+			// column 1: move the largest pivot up, then eliminate
+			if (Math.abs(m21) > Math.abs(m11)) {
+				t = m11; m11 = m21; m21 = t; t = m12; m12 = m22; m22 = t; t = m13; m13 = m23; m23 = t; t = m14; m14 = m24; m24 = t; t = v1; v1 = v2; v2 = t;
+			}
+			if (Math.abs(m31) > Math.abs(m11)) {
+				t = m11; m11 = m31; m31 = t; t = m12; m12 = m32; m32 = t; t = m13; m13 = m33; m33 = t; t = m14; m14 = m34; m34 = t; t = v1; v1 = v3; v3 = t;
+			}
+			if (Math.abs(m41) > Math.abs(m11)) {
+				t = m11; m11 = m41; m41 = t; t = m12; m12 = m42; m42 = t; t = m13; m13 = m43; m43 = t; t = m14; m14 = m44; m44 = t; t = v1; v1 = v4; v4 = t;
+			}
+			t = m21 / m11;
+			m22 -= t * m12; m23 -= t * m13; m24 -= t * m14; v2 -= t * v1;
+			t = m31 / m11;
+			m32 -= t * m12; m33 -= t * m13; m34 -= t * m14; v3 -= t * v1;
+			t = m41 / m11;
+			m42 -= t * m12; m43 -= t * m13; m44 -= t * m14; v4 -= t * v1;
+
+			// column 2: move the largest pivot up, then eliminate
+			if (Math.abs(m32) > Math.abs(m22)) {
+				t = m22; m22 = m32; m32 = t; t = m23; m23 = m33; m33 = t; t = m24; m24 = m34; m34 = t; t = v2; v2 = v3; v3 = t;
+			}
+			if (Math.abs(m42) > Math.abs(m22)) {
+				t = m22; m22 = m42; m42 = t; t = m23; m23 = m43; m43 = t; t = m24; m24 = m44; m44 = t; t = v2; v2 = v4; v4 = t;
+			}
+			t = m32 / m22;
+			m33 -= t * m23; m34 -= t * m24; v3 -= t * v2;
+			t = m42 / m22;
+			m43 -= t * m23; m44 -= t * m24; v4 -= t * v2;
+
+			// column 3: move the largest pivot up, then eliminate
+			if (Math.abs(m43) > Math.abs(m33)) {
+				t = m33; m33 = m43; m43 = t; t = m34; m34 = m44; m44 = t; t = v3; v3 = v4; v4 = t;
+			}
+			t = m43 / m33;
+			m44 -= t * m34; v4 -= t * v3;
+
+			// back substitution
+			v4 /= m44;
+			v3 = (v3 - m34 * v4) / m33;
+			v2 = (v2 - m23 * v3 - m24 * v4) / m22;
+			v1 = (v1 - m12 * v2 - m13 * v3 - m14 * v4) / m11;
+			v0 = (v0 - m01 * v1 - m02 * v2 - m03 * v3 - m04 * v4) / m00;
+
+			data[5 * count + s] = v0;
+			data[11 * count + s] = v1;
+			data[17 * count + s] = v2;
+			data[23 * count + s] = v3;
+			data[29 * count + s] = v4;
+		}
+	}
+
+	private void solveN(final double[] data, final int count, final int from, final int to) {
+		for (int k = 0; k < size; k++) {
+			final int pivotRow = k * columns * count;
+
+			// partial pivoting, the only step that is done system by system
+			for (int s = from; s < to; s++) {
+				int pivot = k;
+				double max = Math.abs(data[pivotRow + k * count + s]);
+				for (int row = k + 1; row < size; row++) {
+					final double value = Math.abs(data[(row * columns + k) * count + s]);
+					if (value > max) {
+						max = value;
+						pivot = row;
+					}
+				}
+
+				if (pivot != k) {
+					final int swapRow = pivot * columns * count;
+					for (int column = k; column < columns; column++) {
+						final int offset = column * count + s;
+						final double temp = data[pivotRow + offset];
+						data[pivotRow + offset] = data[swapRow + offset];
+						data[swapRow + offset] = temp;
+					}
+				}
+			}
+
+			// normalize
+			final int diagonal = pivotRow + k * count;
+			for (int column = k + 1; column < columns; column++) {
+				final int offset = pivotRow + column * count;
+				for (int s = from; s < to; s++) {
+					data[offset + s] /= data[diagonal + s];
+				}
+			}
+
+			// substract this row from all other rows
+			for (int row = 0; row < size; row++) {
+				if (row != k) {
+					final int factorOffset = (row * columns + k) * count;
+
+					for (int column = k + 1; column < columns; column++) {
+						final int offset = (row * columns + column) * count;
+						final int source = pivotRow + column * count;
+						for (int s = from; s < to; s++) {
+							data[offset + s] -= data[factorOffset + s] * data[source + s];
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,390 @@
+package de.treichels.math;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * A compact, versioned binary format for {@link Matrix} and
+ * {@link PolynomalFunction}.
+ * </p>
+ * Each record consists of a {@value #HEADER_SIZE} byte header followed by the
+ * cells as row-major little-endian doubles:
+ *
+ * <pre>
+ * offset  size  content
+ *      0     4  magic number "GJMX"
+ *      4     2  format version
+ *      6     1  kind (1 = matrix, 2 = polynomal function)
+ *      7     1  storage type (ordinal of {@link StorageType})
+ *      8     4  rows
+ *     12     4  columns
+ *     16        rows * columns doubles
+ * </pre>
+ *
+ * A polynomal function is stored as a single row of its coefficients. Any
+ * number of records may follow each other in a channel. Because the payload
+ * is aligned to 8 bytes, a matrix in a file can be mapped without copying
+ * (see {@link #mapMatrix(FileChannel, long)}).
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public final class BinaryFormat {
+	/**
+	 * Sequential reader for the rows of a matrix record. Only one row needs to
+	 * be in memory at a time, so matrices of any size can be processed.
+	 */
+	public static final class RowReader {
+		private final ReadableByteChannel channel;
+		private final Header header;
+		private final ByteBuffer buffer;
+		private int row = 0;
+
+		/**
+		 * Read the header of the next matrix record.
+		 *
+		 * @param channel
+		 * @throws IOException
+		 *             if the channel does not contain a matrix record
+		 */
+		public RowReader(final ReadableByteChannel channel) throws IOException {
+			this(channel, readHeader(channel, KIND_MATRIX));
+		}
+
+		private RowReader(final ReadableByteChannel channel, final Header header) throws IOException {
+			if (header == null) {
+				throw new EOFException();
+			}
+
+			this.channel = channel;
+			this.header = header;
+			buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, (long) header.columns * Double.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * @return the column dimension
+		 */
+		public int getColumns() {
+			return header.columns;
+		}
+
+		/**
+		 * @return the row dimension
+		 */
+		public int getRows() {
+			return header.rows;
+		}
+
+		/**
+		 * @return the storage type of the matrix that was written
+		 */
+		public StorageType getStorageType() {
+			return header.type;
+		}
+
+		/**
+		 * @return <code>true</code> if there are more rows to read
+		 */
+		public boolean hasNext() {
+			return row < header.rows;
+		}
+
+		/**
+		 * Read the next row.
+		 *
+		 * @param values
+		 *            array with at least {@link #getColumns()} elements
+		 * @return <code>false</code> if all rows have been read
+		 * @throws IOException
+		 */
+		public boolean read(final double[] values) throws IOException {
+			if (!hasNext()) {
+				return false;
+			}
+
+			readDoubles(channel, buffer, values, header.columns);
+			row++;
+			return true;
+		}
+	}
+
+	/** Header of a record. */
+	private static final class Header {
+		private final StorageType type;
+		private final int rows;
+		private final int columns;
+
+		private Header(final StorageType type, final int rows, final int columns) {
+			this.type = type;
+			this.rows = rows;
+			this.columns = columns;
+		}
+	}
+
+	/** "GJMX" */
+	public static final int MAGIC = 0x584D4A47;
+	/** The current format version. */
+	public static final short VERSION = 1;
+	/** Size of the header in bytes. */
+	public static final int HEADER_SIZE = 16;
+
+	private static final byte KIND_MATRIX = 1;
+	private static final byte KIND_POLYNOMAL_FUNCTION = 2;
+	/** maximum size of the transfer buffer for heap storage */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Map a matrix record in a file without copying its data (see
+	 * {@link Matrix#map(FileChannel, long, int, int)}).
+	 *
+	 * @param channel
+	 *            a channel opened for reading and writing
+	 * @param position
+	 *            the offset of the record in the file
+	 * @return a matrix with {@link StorageType#MAPPED} storage
+	 * @throws IOException
+	 */
+	public static Matrix mapMatrix(final FileChannel channel, final long position) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException();
+			}
+		}
+
+		buffer.flip();
+		final Header header = parseHeader(buffer, KIND_MATRIX);
+		return Matrix.map(channel, position + HEADER_SIZE, header.rows, header.columns);
+	}
+
+	/**
+	 * Read the next polynomal function record.
+	 *
+	 * @param channel
+	 * @return the function or <code>null</code> at the end of the channel
+	 * @throws IOException
+	 */
+	public static PolynomalFunction readFunction(final ReadableByteChannel channel) throws IOException {
+		final Header header = readHeader(channel, KIND_POLYNOMAL_FUNCTION);
+		if (header == null) {
+			return null;
+		}
+
+		final double[] coefficients = new double[header.columns];
+		final ByteBuffer buffer = ByteBuffer.allocate(coefficients.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		readDoubles(channel, buffer, coefficients, coefficients.length);
+		return new PolynomalFunction(coefficients);
+	}
+
+	/**
+	 * Read the next matrix record into a matrix of the storage type that was
+	 * written.
+	 *
+	 * @param channel
+	 * @return the matrix or <code>null</code> at the end of the channel
+	 * @throws IOException
+	 */
+	public static Matrix readMatrix(final ReadableByteChannel channel) throws IOException {
+		return readMatrix(channel, null);
+	}
+
+	/**
+	 * Read the next matrix record into a matrix of the given storage type.
+	 * {@link StorageType#DIRECT} and {@link StorageType#MAPPED} matrices are
+	 * read from the channel directly into their buffers.
+	 *
+	 * @param channel
+	 * @param type
+	 *            the storage type or <code>null</code> for the type that was
+	 *            written
+	 * @return the matrix or <code>null</code> at the end of the channel
+	 * @throws IOException
+	 */
+	public static Matrix readMatrix(final ReadableByteChannel channel, final StorageType type) throws IOException {
+		final Header header = readHeader(channel, KIND_MATRIX);
+		if (header == null) {
+			return null;
+		}
+
+		final Matrix result = new Matrix(header.rows, header.columns, type == null ? header.type : type);
+		final Storage storage = result.getStorage();
+
+		if (storage instanceof BufferStorage) {
+			for (final ByteBuffer buffer : ((BufferStorage) storage).getBuffers()) {
+				readFully(channel, buffer);
+			}
+		} else {
+			final RowReader reader = new RowReader(channel, header);
+			final double[] row = new double[header.columns];
+
+			for (int i = 0; reader.read(row); i++) {
+				storage.setRow(i, row);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Write a matrix record. The cells of {@link StorageType#DIRECT} and
+	 * {@link StorageType#MAPPED} matrices are written from their buffers
+	 * without copying.
+	 *
+	 * @param matrix
+	 * @param channel
+	 * @throws IOException
+	 */
+	public static void write(final Matrix matrix, final WritableByteChannel channel) throws IOException {
+		final Storage storage = matrix.getStorage();
+		final int rows = storage.getRows();
+		final int columns = storage.getColumns();
+
+		if (storage instanceof BufferStorage) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			putHeader(header, KIND_MATRIX, storage.getType(), rows, columns);
+			header.flip();
+			writeFully(channel, header);
+
+			for (final ByteBuffer buffer : ((BufferStorage) storage).getBuffers()) {
+				writeFully(channel, buffer);
+			}
+		} else {
+			// header and small matrices in a single write
+			final long size = HEADER_SIZE + (long) rows * columns * Double.BYTES;
+			final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, Math.max(BUFFER_SIZE, HEADER_SIZE + columns * Double.BYTES)))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			final double[] row = new double[columns];
+			putHeader(buffer, KIND_MATRIX, storage.getType(), rows, columns);
+
+			for (int i = 0; i < rows; i++) {
+				if (buffer.remaining() < columns * Double.BYTES) {
+					buffer.flip();
+					writeFully(channel, buffer);
+					buffer.clear();
+				}
+
+				storage.getRow(i, row);
+				buffer.asDoubleBuffer().put(row);
+				buffer.position(buffer.position() + columns * Double.BYTES);
+			}
+
+			buffer.flip();
+			writeFully(channel, buffer);
+		}
+	}
+
+	/**
+	 * Write a polynomal function record.
+	 *
+	 * @param function
+	 * @param channel
+	 * @throws IOException
+	 */
+	public static void write(final PolynomalFunction function, final WritableByteChannel channel) throws IOException {
+		final double[] coefficients = function.getCoefficients();
+		final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + coefficients.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+		putHeader(buffer, KIND_POLYNOMAL_FUNCTION, StorageType.FLAT, 1, coefficients.length);
+		buffer.asDoubleBuffer().put(coefficients);
+		buffer.position(buffer.limit());
+		buffer.flip();
+		writeFully(channel, buffer);
+	}
+
+	private static Header parseHeader(final ByteBuffer buffer, final byte kind) throws IOException {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("malformed binary data, wrong magic number!");
+		}
+
+		final short version = buffer.getShort();
+		if (version != VERSION) {
+			throw new IOException("unsupported binary format version " + version + "!");
+		}
+
+		if (buffer.get() != kind) {
+			throw new IOException("malformed binary data, wrong record kind!");
+		}
+
+		final int type = buffer.get();
+		final int rows = buffer.getInt();
+		final int columns = buffer.getInt();
+		if (type < 0 || type >= StorageType.values().length || rows < 1 || columns < 1) {
+			throw new IOException("malformed binary data, wrong dimensions!");
+		}
+
+		return new Header(StorageType.values()[type], rows, columns);
+	}
+
+	private static void putHeader(final ByteBuffer buffer, final byte kind, final StorageType type, final int rows, final int columns) {
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.put(kind);
+		buffer.put((byte) type.ordinal());
+		buffer.putInt(rows);
+		buffer.putInt(columns);
+	}
+
+	/**
+	 * Read count doubles into values through the given transfer buffer.
+	 */
+	private static void readDoubles(final ReadableByteChannel channel, final ByteBuffer buffer, final double[] values, final int count) throws IOException {
+		for (int offset = 0; offset < count;) {
+			final int length = Math.min(count - offset, buffer.capacity() / Double.BYTES);
+
+			buffer.clear().limit(length * Double.BYTES);
+			readFully(channel, buffer);
+			buffer.flip();
+
+			final DoubleBuffer doubles = buffer.asDoubleBuffer();
+			doubles.get(values, offset, length);
+			offset += length;
+		}
+	}
+
+	private static void readFully(final ReadableByteChannel channel, final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	/**
+	 * Read the header of the next record.
+	 *
+	 * @return the header or <code>null</code> at the end of the channel
+	 */
+	private static Header readHeader(final ReadableByteChannel channel, final byte kind) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				if (buffer.position() == 0) {
+					return null;
+				}
+
+				throw new EOFException();
+			}
+		}
+
+		buffer.flip();
+		return parseHeader(buffer, kind);
+	}
+
+	private static void writeFully(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private BinaryFormat() {
+	}
+}
@@ -0,0 +1,228 @@
+package de.treichels.math;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * {@link Storage} outside of the Java heap, either in direct
+ * {@link ByteBuffer}s or in a memory-mapped file.
+ * <p>
+ * The cells are stored row-major as little-endian doubles. A single buffer is
+ * limited to 2 GB, so larger matrices are split into segments of whole rows.
+ * Rows are swapped physically, so the row order in the buffers always matches
+ * the logical row order and a sweep over all rows reads the file
+ * sequentially.
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+class BufferStorage extends Storage {
+	/** Maximum size of a single segment in bytes. */
+	static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE & ~7;
+
+	/**
+	 * Allocate a zero-filled storage in direct buffers.
+	 *
+	 * @param rows
+	 * @param columns
+	 * @return the new storage
+	 */
+	static BufferStorage allocateDirect(final int rows, final int columns) {
+		final int rowsPerSegment = getRowsPerSegment(rows, columns);
+		final ByteBuffer[] buffers = new ByteBuffer[(rows + rowsPerSegment - 1) / rowsPerSegment];
+
+		for (int segment = 0; segment < buffers.length; segment++) {
+			final int segmentRows = Math.min(rowsPerSegment, rows - segment * rowsPerSegment);
+			buffers[segment] = ByteBuffer.allocateDirect(segmentRows * columns * Double.BYTES);
+		}
+
+		return new BufferStorage(buffers, rows, columns, rowsPerSegment, StorageType.DIRECT);
+	}
+
+	/**
+	 * Map a storage to a temporary file, which is deleted as soon as possible.
+	 *
+	 * @param rows
+	 * @param columns
+	 * @return the new storage
+	 */
+	static BufferStorage createTemporary(final int rows, final int columns) {
+		try {
+			final File file = File.createTempFile("matrix", ".bin");
+
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				// the mapping remains valid after the channel is closed
+				return map(raf.getChannel(), 0, rows, columns);
+			} finally {
+				if (!file.delete()) {
+					file.deleteOnExit();
+				}
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Map a storage to a region of a file. The file is extended if needed.
+	 *
+	 * @param channel
+	 *            a channel opened for reading and writing
+	 * @param position
+	 *            the offset of the first cell in the file
+	 * @param rows
+	 * @param columns
+	 * @return the new storage
+	 * @throws IOException
+	 */
+	static BufferStorage map(final FileChannel channel, final long position, final int rows, final int columns) throws IOException {
+		final int rowsPerSegment = getRowsPerSegment(rows, columns);
+		final long segmentSize = (long) rowsPerSegment * columns * Double.BYTES;
+		final ByteBuffer[] buffers = new ByteBuffer[(rows + rowsPerSegment - 1) / rowsPerSegment];
+
+		for (int segment = 0; segment < buffers.length; segment++) {
+			final int segmentRows = Math.min(rowsPerSegment, rows - segment * rowsPerSegment);
+			buffers[segment] = channel.map(MapMode.READ_WRITE, position + segment * segmentSize, (long) segmentRows * columns * Double.BYTES);
+		}
+
+		return new BufferStorage(buffers, rows, columns, rowsPerSegment, StorageType.MAPPED);
+	}
+
+	private static int getRowsPerSegment(final int rows, final int columns) {
+		if (rows < 1 || columns < 1 || columns > MAX_SEGMENT_SIZE / Double.BYTES) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		return Math.min(rows, MAX_SEGMENT_SIZE / Double.BYTES / columns);
+	}
+
+	private final ByteBuffer[] buffers;
+	private final DoubleBuffer[] segments;
+	private final int rows;
+	private final int columns;
+	private final int rowsPerSegment;
+	private final StorageType type;
+
+	private BufferStorage(final ByteBuffer[] buffers, final int rows, final int columns, final int rowsPerSegment, final StorageType type) {
+		this.buffers = buffers;
+		this.rows = rows;
+		this.columns = columns;
+		this.rowsPerSegment = rowsPerSegment;
+		this.type = type;
+		segments = new DoubleBuffer[buffers.length];
+
+		for (int segment = 0; segment < buffers.length; segment++) {
+			segments[segment] = buffers[segment].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		}
+	}
+
+	@Override
+	void add(final int row1, final int row2, final double factor) {
+		final DoubleBuffer source = segments[row1 / rowsPerSegment];
+		final DoubleBuffer target = segments[row2 / rowsPerSegment];
+		final int sourceOffset = row1 % rowsPerSegment * columns;
+		final int targetOffset = row2 % rowsPerSegment * columns;
+
+		for (int column = 0; column < columns; column++) {
+			target.put(targetOffset + column, target.get(targetOffset + column) + source.get(sourceOffset + column) * factor);
+		}
+	}
+
+	@Override
+	void force() {
+		for (final ByteBuffer buffer : buffers) {
+			if (buffer instanceof MappedByteBuffer) {
+				((MappedByteBuffer) buffer).force();
+			}
+		}
+	}
+
+	@Override
+	double get(final int row, final int column) {
+		return segments[row / rowsPerSegment].get(row % rowsPerSegment * columns + column);
+	}
+
+	/**
+	 * @return independent views of the raw bytes, one per segment
+	 */
+	ByteBuffer[] getBuffers() {
+		final ByteBuffer[] result = new ByteBuffer[buffers.length];
+
+		for (int segment = 0; segment < buffers.length; segment++) {
+			result[segment] = buffers[segment].duplicate();
+			result[segment].clear();
+		}
+
+		return result;
+	}
+
+	@Override
+	int getColumns() {
+		return columns;
+	}
+
+	@Override
+	void getRow(final int row, final double[] result) {
+		final DoubleBuffer buffer = segments[row / rowsPerSegment].duplicate();
+		buffer.position(row % rowsPerSegment * columns);
+		buffer.get(result, 0, columns);
+	}
+
+	@Override
+	int getRows() {
+		return rows;
+	}
+
+	@Override
+	StorageType getType() {
+		return type;
+	}
+
+	@Override
+	void multiply(final int row, final double factor) {
+		final DoubleBuffer target = segments[row / rowsPerSegment];
+		final int offset = row % rowsPerSegment * columns;
+
+		for (int column = 0; column < columns; column++) {
+			target.put(offset + column, target.get(offset + column) * factor);
+		}
+	}
+
+	@Override
+	void set(final int row, final int column, final double value) {
+		segments[row / rowsPerSegment].put(row % rowsPerSegment * columns + column, value);
+	}
+
+	@Override
+	void setRow(final int row, final double[] values) {
+		final DoubleBuffer buffer = segments[row / rowsPerSegment].duplicate();
+		buffer.position(row % rowsPerSegment * columns);
+		buffer.put(values, 0, columns);
+	}
+
+	@Override
+	void swap(final int row1, final int row2) {
+		if (row1 == row2) {
+			return;
+		}
+
+		final DoubleBuffer buffer1 = segments[row1 / rowsPerSegment];
+		final DoubleBuffer buffer2 = segments[row2 / rowsPerSegment];
+		final int offset1 = row1 % rowsPerSegment * columns;
+		final int offset2 = row2 % rowsPerSegment * columns;
+
+		for (int column = 0; column < columns; column++) {
+			final double temp = buffer1.get(offset1 + column);
+			buffer1.put(offset1 + column, buffer2.get(offset2 + column));
+			buffer2.put(offset2 + column, temp);
+		}
+	}
+}
@@ -0,0 +1,435 @@
+package de.treichels.math;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A natural cubic spline through a set of control points.
+ * </p>
+ *
+ * Between two neighboring control points x<sub>i</sub> and x<sub>i+1</sub>,
+ * the spline is the polynomal function
+ *
+ * <pre>
+ * f<sub>i</sub>(x) = a<sub>i</sub> (x - x<sub>i</sub>)<sup>3</sup> + b<sub>i</sub> (x - x<sub>i</sub>)<sup>2</sup> + c<sub>i</sub> (x - x<sub>i</sub>) + d<sub>i</sub>
+ * </pre>
+ *
+ * The coefficients b<sub>i</sub> are found by solving a tridiagonal equation
+ * system with a {@link TridiagonalMatrix}, a<sub>i</sub> and c<sub>i</sub> are
+ * derived from them and d<sub>i</sub> = y<sub>i</sub>. The second derivative
+ * is 0 at both ends (natural spline).
+ * <p>
+ * Evaluation does not allocate any memory. Single control points can be moved
+ * with {@link #setPoint(int, double, double)}, which only recalculates the
+ * segments that are affected.
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class CubicSpline {
+	private final double[] xs;
+	private final double[] ys;
+	private final PolynomalFunction[] functions;
+	private final TridiagonalMatrix matrix;
+	/** right hand side of the equation system */
+	private final double[] rhs;
+	/** solution of the equation system: b<sub>1</sub> .. b<sub>n-2</sub> */
+	private final double[] b;
+	/** cached forward sweep of the Thomas algorithm */
+	private final double[] factors;
+	private final double[] divisors;
+	/** scratch for localized updates */
+	private final double[] delta;
+	/** coefficients of each segment when it was last reported as changed */
+	private final double[] reported;
+	private double tolerance = 0;
+	private int changedFrom = -1;
+	private int changedTo = -1;
+
+	/**
+	 * Construct a natural cubic spline through the given control points. The
+	 * arrays are copied.
+	 *
+	 * @param xs
+	 *            x values of the control points in strictly ascending order
+	 * @param ys
+	 *            y values of the control points
+	 * @throws IllegalArgumentException
+	 *             if there are less than two points, the arrays have different
+	 *             lengths or the x values are not strictly ascending
+	 */
+	public CubicSpline(final double[] xs, final double[] ys) {
+		final int n = xs.length;
+
+		if (n < 2 || ys.length != n) {
+			throw new IllegalArgumentException("malformed spline, wrong dimensions!");
+		}
+
+		for (int i = 1; i < n; i++) {
+			if (!(xs[i] > xs[i - 1])) {
+				throw new IllegalArgumentException("malformed spline, x values must be strictly ascending!");
+			}
+		}
+
+		this.xs = Arrays.copyOf(xs, n);
+		this.ys = Arrays.copyOf(ys, n);
+
+		functions = new PolynomalFunction[n - 1];
+		for (int i = 0; i < n - 1; i++) {
+			functions[i] = new PolynomalFunction(3);
+		}
+
+		matrix = new TridiagonalMatrix(n - 2);
+		rhs = new double[n - 2];
+		b = new double[n - 2];
+		factors = new double[n - 2];
+		divisors = new double[n - 2];
+		delta = new double[n - 2];
+		reported = new double[4 * (n - 1)];
+
+		compute();
+	}
+
+	/**
+	 * Calculate all coefficients from the control points.
+	 */
+	private void compute() {
+		final int n = xs.length;
+
+		// fill and solve matrix only for 3 point or more
+		if (n > 2) {
+			final double[] lower = matrix.getLower();
+			final double[] diagonal = matrix.getDiagonal();
+			final double[] upper = matrix.getUpper();
+
+			for (int i = 1; i < n - 1; i++) {
+				final double him1 = xs[i] - xs[i - 1];
+				final double hi = xs[i + 1] - xs[i];
+
+				lower[i - 1] = i > 1 ? him1 : 0;
+				diagonal[i - 1] = 2 * (him1 + hi);
+				upper[i - 1] = i < n - 2 ? hi : 0;
+				rhs[i - 1] = computeRhs(i);
+			}
+
+			matrix.solve(rhs, b);
+
+			// keep the forward sweep for localized updates
+			for (int k = 0; k < n - 2; k++) {
+				divisors[k] = diagonal[k] - (k > 0 ? lower[k] * factors[k - 1] : 0);
+				factors[k] = upper[k] / divisors[k];
+			}
+		}
+
+		computeSegments(0, n - 2);
+	}
+
+	/**
+	 * Right hand side of the equation for inner control point i.
+	 */
+	private double computeRhs(final int i) {
+		return 3 * ((ys[i + 1] - ys[i]) / (xs[i + 1] - xs[i]) - (ys[i] - ys[i - 1]) / (xs[i] - xs[i - 1]));
+	}
+
+	/**
+	 * Calculate ai, bi, ci and di of the segments from..to (inclusive) and
+	 * record the segments that changed by more than the tolerance since they
+	 * were last reported, so small changes add up until they are reported.
+	 */
+	private void computeSegments(final int from, final int to) {
+		final int n = xs.length;
+
+		for (int i = from; i <= to; i++) {
+			final double hi = xs[i + 1] - xs[i];
+			final double bi = i == 0 ? 0 : b[i - 1];
+			final double bip1 = i < n - 2 ? b[i] : 0;
+			final double[] coefficients = functions[i].getCoefficients();
+
+			final double ai = (bip1 - bi) / 3 / hi;
+			final double ci = (ys[i + 1] - ys[i]) / hi - (bip1 - bi) * hi / 3 - bi * hi;
+			final double di = ys[i];
+
+			coefficients[0] = ai;
+			coefficients[1] = bi;
+			coefficients[2] = ci;
+			coefficients[3] = di;
+
+			// upper bound of the change of the curve within the segment
+			final int offset = 4 * i;
+			final double change = Math.abs(ai - reported[offset]) * hi * hi * hi + Math.abs(bi - reported[offset + 1]) * hi * hi
+					+ Math.abs(ci - reported[offset + 2]) * hi + Math.abs(di - reported[offset + 3]);
+			if (change > tolerance) {
+				changed(i);
+			}
+		}
+	}
+
+	/**
+	 * Report a segment as changed and remember its current coefficients.
+	 */
+	private void changed(final int segment) {
+		System.arraycopy(functions[segment].getCoefficients(), 0, reported, 4 * segment, 4);
+
+		if (changedTo < 0) {
+			changedFrom = segment;
+			changedTo = segment;
+		} else {
+			changedFrom = Math.min(changedFrom, segment);
+			changedTo = Math.max(changedTo, segment);
+		}
+	}
+
+	/**
+	 * Calculate the value of the spline at x. Values outside of the control
+	 * points are extrapolated from the first or last segment.
+	 *
+	 * @param x
+	 * @return the spline value
+	 */
+	public double evaluate(final double x) {
+		final int segment = getSegment(x);
+		return functions[segment].evaluate(x - xs[segment]);
+	}
+
+	/**
+	 * Calculate the values of the spline for many x values at once. Ascending
+	 * input is handled fastest, as the segment of the previous value is checked
+	 * first.
+	 *
+	 * @param in
+	 *            the x values
+	 * @param out
+	 *            receives the spline values, may be the same array as in
+	 */
+	public void evaluate(final double[] in, final double[] out) {
+		final int length = in.length;
+
+		if (out.length < length) {
+			throw new IllegalArgumentException("malformed vector, wrong dimensions!");
+		}
+
+		final int last = functions.length - 1;
+		int segment = 0;
+
+		for (int i = 0; i < length; i++) {
+			final double x = in[i];
+
+			if (x < xs[segment] && segment > 0 || x >= xs[segment + 1] && segment < last) {
+				segment = getSegment(x);
+			}
+
+			out[i] = functions[segment].evaluate(x - xs[segment]);
+		}
+	}
+
+	/**
+	 * Get the first segment that was changed by the last call of
+	 * {@link #setPoint(int, double, double)}.
+	 *
+	 * @return the segment index, -1 if nothing changed
+	 */
+	public int getChangedFrom() {
+		return changedFrom;
+	}
+
+	/**
+	 * Get the last segment (inclusive) that was changed by the last call of
+	 * {@link #setPoint(int, double, double)}.
+	 *
+	 * @return the segment index, -1 if nothing changed
+	 */
+	public int getChangedTo() {
+		return changedTo;
+	}
+
+	/**
+	 * Get the polynomal functions of all segments. The function of segment i
+	 * takes <code>x - x<sub>i</sub></code> as argument.
+	 *
+	 * @return the functions
+	 */
+	public PolynomalFunction[] getFunctions() {
+		return functions;
+	}
+
+	/**
+	 * Get the number of control points.
+	 *
+	 * @return the number of points
+	 */
+	public int getPointCount() {
+		return xs.length;
+	}
+
+	/**
+	 * Find the segment of the spline that contains x.
+	 *
+	 * @param x
+	 * @return the segment index i with x<sub>i</sub> &lt;= x &lt;
+	 *         x<sub>i+1</sub>, limited to the first and last segment
+	 */
+	public int getSegment(final double x) {
+		final int index = Arrays.binarySearch(xs, x);
+		final int segment = index >= 0 ? index : -index - 2;
+
+		return Math.max(0, Math.min(functions.length - 1, segment));
+	}
+
+	/**
+	 * Get the tolerance below which a segment is not reported as changed.
+	 *
+	 * @return the tolerance in y units
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Get the x value of a control point.
+	 *
+	 * @param index
+	 * @return the x value
+	 */
+	public double getX(final int index) {
+		return xs[index];
+	}
+
+	/**
+	 * Get the y value of a control point.
+	 *
+	 * @param index
+	 * @return the y value
+	 */
+	public double getY(final int index) {
+		return ys[index];
+	}
+
+	/**
+	 * <p>
+	 * Move a control point and update the spline.
+	 * </p>
+	 * If only the y value changes, the equation system keeps its matrix. The
+	 * change of the right hand side is limited to three rows, and its effect on
+	 * the solution decays by at least a factor of two per control point. So
+	 * only the cached forward sweep is applied to the difference, starting at
+	 * the point and stopping as soon as the corrections drop below the
+	 * precision of the solution. Moving the x value changes the matrix and
+	 * solves the system again in O(n).
+	 * <p>
+	 * Afterwards {@link #getChangedFrom()} and {@link #getChangedTo()} return
+	 * the range of segments whose curve changed by more than
+	 * {@link #getTolerance()} since they were last reported, e.g. to redraw
+	 * only these segments. Smaller changes add up over several calls until
+	 * they are reported.
+	 * </p>
+	 *
+	 * @param index
+	 *            the index of the control point
+	 * @param x
+	 *            the new x value, between the x values of the neighbors
+	 * @param y
+	 *            the new y value
+	 * @throws IllegalArgumentException
+	 *             if the x values would not be strictly ascending any more
+	 */
+	public void setPoint(final int index, final double x, final double y) {
+		final int n = xs.length;
+
+		if (index > 0 && !(x > xs[index - 1]) || index < n - 1 && !(x < xs[index + 1])) {
+			throw new IllegalArgumentException("malformed spline, x values must be strictly ascending!");
+		}
+
+		changedFrom = -1;
+		changedTo = -1;
+
+		if (x != xs[index]) {
+			xs[index] = x;
+			ys[index] = y;
+			compute();
+
+			// the ends of these segments moved
+			if (index > 0) {
+				changed(index - 1);
+			}
+			if (index < n - 1) {
+				changed(index);
+			}
+		} else if (y != ys[index]) {
+			ys[index] = y;
+			updatePoint(index);
+		}
+	}
+
+	/**
+	 * Set the tolerance below which a segment is not reported as changed by
+	 * {@link #setPoint(int, double, double)}, e.g. half a pixel.
+	 *
+	 * @param tolerance
+	 *            the tolerance in y units
+	 */
+	public void setTolerance(final double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Update the spline after the y value of a control point changed: update
+	 * the right hand side in the three rows of the point and its neighbors and
+	 * add the resulting change to the solution, using the cached forward sweep.
+	 *
+	 * @param index
+	 */
+	private void updatePoint(final int index) {
+		final int n = xs.length;
+		final int size = b.length;
+
+		// b[k] belongs to control point k + 1, i.e. to the segments k and k + 1
+		int first = index - 1;
+		int last = index - 1;
+
+		if (size > 0) {
+			final double[] lower = matrix.getLower();
+			final int from = Math.max(0, index - 2);
+			final int to = Math.min(size - 1, index);
+
+			// forward sweep, the right hand side only changes in rows from..to
+			double previous = 0;
+			int end = from;
+			for (int k = from; k < size; k++) {
+				double change = 0;
+				if (k <= to) {
+					final double value = computeRhs(k + 1);
+					change = value - rhs[k];
+					rhs[k] = value;
+				}
+
+				previous = (change - (k > from ? lower[k] * previous : 0)) / divisors[k];
+				delta[k] = previous;
+				end = k;
+
+				if (k >= to && Math.abs(previous) <= Math.ulp(b[k])) {
+					break;
+				}
+			}
+
+			// back substitution until the corrections vanish
+			double next = 0;
+			int start = 0;
+			for (int k = end; k >= 0; k--) {
+				final double value = (k >= from ? delta[k] : 0) - factors[k] * next;
+
+				if (k < from && Math.abs(value) <= Math.ulp(b[k])) {
+					start = k + 1;
+					break;
+				}
+
+				b[k] += value;
+				next = value;
+			}
+
+			first = Math.min(first, start);
+			last = Math.max(last, end + 1);
+		}
+
+		computeSegments(Math.max(0, first), Math.min(n - 2, Math.max(last, index)));
+	}
+}
@@ -0,0 +1,285 @@
+package de.treichels.math;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Level-of-detail reduction of a series of points for drawing.
+ * </p>
+ * For a visible x range that is drawn with a number of pixel columns, only the
+ * points with the minimum and maximum y value of each column are needed to
+ * draw the same line. To find them without scanning all points on every zoom
+ * or pan, a pyramid of the minimum and maximum indices of buckets with 2, 4, 8,
+ * ... points is calculated once. A query combines the largest buckets that lie
+ * completely within a pixel column, so it takes time proportional to the
+ * number of columns (times the logarithm of the points per column), not to the
+ * number of points.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class Decimator {
+	private final double[] xs;
+	private final double[] ys;
+	/** index of the minimum y value of bucket b at level l (size 2<sup>l+1</sup>) */
+	private final int[][] minIndices;
+	/** index of the maximum y value of bucket b at level l (size 2<sup>l+1</sup>) */
+	private final int[][] maxIndices;
+
+	/**
+	 * Build the pyramid for a series of points. The arrays are used directly,
+	 * not copied.
+	 *
+	 * @param xs
+	 *            x values in ascending order
+	 * @param ys
+	 *            y values
+	 * @throws IllegalArgumentException
+	 *             if the arrays have different lengths
+	 */
+	public Decimator(final double[] xs, final double[] ys) {
+		final int n = xs.length;
+
+		if (ys.length != n) {
+			throw new IllegalArgumentException("malformed series, wrong dimensions!");
+		}
+
+		this.xs = xs;
+		this.ys = ys;
+
+		int levels = 0;
+		while (n > 1 << levels + 1) {
+			levels++;
+		}
+		minIndices = new int[levels][];
+		maxIndices = new int[levels][];
+
+		int count = n;
+		for (int level = 0; level < levels; level++) {
+			count = (count + 1) / 2;
+			minIndices[level] = new int[count];
+			maxIndices[level] = new int[count];
+
+			for (int bucket = 0; bucket < count; bucket++) {
+				combine(level, bucket);
+			}
+		}
+	}
+
+	/**
+	 * Calculate minimum and maximum of a bucket from the two points or buckets
+	 * of the level below.
+	 */
+	private void combine(final int level, final int bucket) {
+		final int count = level == 0 ? xs.length : minIndices[level - 1].length;
+		final int left = 2 * bucket;
+		final int right = Math.min(left + 1, count - 1);
+		final int leftMin = level == 0 ? left : minIndices[level - 1][left];
+		final int rightMin = level == 0 ? right : minIndices[level - 1][right];
+		final int leftMax = level == 0 ? left : maxIndices[level - 1][left];
+		final int rightMax = level == 0 ? right : maxIndices[level - 1][right];
+
+		minIndices[level][bucket] = ys[rightMin] < ys[leftMin] ? rightMin : leftMin;
+		maxIndices[level][bucket] = ys[rightMax] > ys[leftMax] ? rightMax : leftMax;
+	}
+
+	/**
+	 * <p>
+	 * Select the points needed to draw the x range from..to with a number of
+	 * pixel columns.
+	 * </p>
+	 * The result contains the minimum and the maximum point of each column in
+	 * ascending order, plus the nearest point outside of each end of the range,
+	 * so lines reach the border. If the range contains no more than two points
+	 * per column, all of them are returned.
+	 *
+	 * @param from
+	 *            the lower bound of the visible x range
+	 * @param to
+	 *            the upper bound of the visible x range
+	 * @param columns
+	 *            the number of pixel columns
+	 * @return the indices of the selected points in ascending order
+	 * @throws IllegalArgumentException
+	 *             if the range is empty or there are no columns
+	 */
+	public int[] decimate(final double from, final double to, final int columns) {
+		if (!(to > from) || columns < 1) {
+			throw new IllegalArgumentException("malformed range, no columns!");
+		}
+
+		final int n = xs.length;
+		final int start = getLowerIndex(from);
+		final int end = getUpperIndex(to);
+		final int count = end - start;
+
+		// include the nearest points outside of the range
+		if (count <= 2 * columns) {
+			final int first = Math.max(0, start - 1);
+			final int last = Math.min(n, end + 1);
+			final int[] result = new int[last - first];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = first + i;
+			}
+			return result;
+		}
+
+		// largest bucket size that fits into a column
+		int level = -1;
+		while (level + 1 < minIndices.length && 2 << level + 1 <= count / columns) {
+			level++;
+		}
+
+		final int[] result = new int[2 * columns + 4];
+		int length = 0;
+		if (start > 0) {
+			result[length++] = start - 1;
+		}
+
+		int column = -1;
+		int minIndex = -1;
+		int maxIndex = -1;
+		int i = start;
+
+		while (i < end) {
+			final int unitColumn = getColumn(xs[i], from, to, columns);
+			final int unitMin;
+			final int unitMax;
+			final int next;
+
+			// largest aligned bucket that ends in the same column, smaller
+			// ones are only used next to column borders and range ends
+			int unitLevel = level;
+			while (unitLevel >= 0) {
+				final int size = 2 << unitLevel;
+				if (i % size == 0 && i + size <= end && getColumn(xs[i + size - 1], from, to, columns) == unitColumn) {
+					break;
+				}
+				unitLevel--;
+			}
+
+			if (unitLevel >= 0) {
+				final int size = 2 << unitLevel;
+				unitMin = minIndices[unitLevel][i / size];
+				unitMax = maxIndices[unitLevel][i / size];
+				next = i + size;
+			} else {
+				unitMin = i;
+				unitMax = i;
+				next = i + 1;
+			}
+
+			if (unitColumn != column) {
+				length = flush(result, length, minIndex, maxIndex);
+				column = unitColumn;
+				minIndex = unitMin;
+				maxIndex = unitMax;
+			} else {
+				if (ys[unitMin] < ys[minIndex]) {
+					minIndex = unitMin;
+				}
+				if (ys[unitMax] > ys[maxIndex]) {
+					maxIndex = unitMax;
+				}
+			}
+
+			i = next;
+		}
+
+		length = flush(result, length, minIndex, maxIndex);
+		if (end < n) {
+			result[length++] = end;
+		}
+
+		return Arrays.copyOf(result, length);
+	}
+
+	/**
+	 * Append the minimum and maximum of a column in ascending order.
+	 */
+	private static int flush(final int[] result, final int length, final int minIndex, final int maxIndex) {
+		if (minIndex < 0) {
+			return length;
+		}
+
+		final int first = Math.min(minIndex, maxIndex);
+		final int last = Math.max(minIndex, maxIndex);
+		int index = length;
+
+		result[index++] = first;
+		if (last != first) {
+			result[index++] = last;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Pixel column of x, points outside of the range belong to the first or
+	 * last column.
+	 */
+	private static int getColumn(final double x, final double from, final double to, final int columns) {
+		final int column = (int) ((x - from) / (to - from) * columns);
+		return Math.max(0, Math.min(columns - 1, column));
+	}
+
+	/**
+	 * Get the number of levels of the pyramid.
+	 *
+	 * @return the number of levels
+	 */
+	public int getLevelCount() {
+		return minIndices.length;
+	}
+
+	/**
+	 * Index of the first point with an x value &gt;= x.
+	 */
+	private int getLowerIndex(final double x) {
+		int low = 0;
+		int high = xs.length;
+
+		while (low < high) {
+			final int mid = low + high >>> 1;
+			if (xs[mid] < x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Index of the first point with an x value &gt; x.
+	 */
+	private int getUpperIndex(final double x) {
+		int low = 0;
+		int high = xs.length;
+
+		while (low < high) {
+			final int mid = low + high >>> 1;
+			if (xs[mid] <= x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Update the pyramid after the y value of a point changed, e.g. while it is
+	 * dragged. Only the buckets containing the point are recalculated. The x
+	 * value may change too, as long as the x values stay in ascending order.
+	 *
+	 * @param index
+	 *            the index of the changed point
+	 */
+	public void update(final int index) {
+		for (int level = 0; level < minIndices.length; level++) {
+			combine(level, index >> level + 1);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package de.treichels.math;
+
+/**
+ * {@link Storage} in a single contiguous row-major <code>double[]</code>.
+ * <p>
+ * Each logical row is mapped to the offset of its physical row in the data
+ * array. Swapping two rows only swaps their offsets.
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+class FlatStorage extends Storage {
+	final double[] data;
+	final int columns;
+	final int[] offsets;
+
+	FlatStorage(final double[] data, final int rows, final int columns) {
+		if (rows < 1 || columns < 1 || data.length < rows * columns) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		this.data = data;
+		this.columns = columns;
+		offsets = new int[rows];
+
+		for (int row = 0; row < rows; row++) {
+			offsets[row] = row * columns;
+		}
+	}
+
+	FlatStorage(final int rows, final int columns) {
+		this(new double[rows * columns], rows, columns);
+	}
+
+	@Override
+	void add(final int row1, final int row2, final double factor) {
+		final int source = offsets[row1];
+		final int target = offsets[row2];
+
+		for (int column = 0; column < columns; column++) {
+			data[target + column] += data[source + column] * factor;
+		}
+	}
+
+	@Override
+	double get(final int row, final int column) {
+		return data[offsets[row] + column];
+	}
+
+	@Override
+	int getColumns() {
+		return columns;
+	}
+
+	@Override
+	void getRow(final int row, final double[] result) {
+		System.arraycopy(data, offsets[row], result, 0, columns);
+	}
+
+	@Override
+	int getRows() {
+		return offsets.length;
+	}
+
+	@Override
+	StorageType getType() {
+		return StorageType.FLAT;
+	}
+
+	@Override
+	void multiply(final int row, final double factor) {
+		final int target = offsets[row];
+
+		for (int column = 0; column < columns; column++) {
+			data[target + column] *= factor;
+		}
+	}
+
+	@Override
+	void set(final int row, final int column, final double value) {
+		data[offsets[row] + column] = value;
+	}
+
+	@Override
+	void setRow(final int row, final double[] values) {
+		System.arraycopy(values, 0, data, offsets[row], columns);
+	}
+
+	@Override
+	void swap(final int row1, final int row2) {
+		final int temp = offsets[row1];
+		offsets[row1] = offsets[row2];
+		offsets[row2] = temp;
+	}
+
+	@Override
+	void swapColumns(final int column1, final int column2) {
+		for (final int offset : offsets) {
+			final double temp = data[offset + column1];
+			data[offset + column1] = data[offset + column2];
+			data[offset + column2] = temp;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package de.treichels.math;
+
+/**
+ * LU factorization with partial pivoting in single precision. Used by
+ * {@link Matrix#solveMixedPrecision()}, which recovers double precision
+ * accuracy by iterative refinement.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+class FloatLUFactorization {
+	private final float[] lu;
+	private final int[] pivots;
+	private final int size;
+	private final float[] buffer;
+
+	/**
+	 * Factorize the first <code>size</code> columns of a matrix.
+	 *
+	 * @param matrix
+	 * @param size
+	 * @throws IllegalArgumentException
+	 *             if the matrix is singular in single precision
+	 */
+	FloatLUFactorization(final Matrix matrix, final int size) {
+		this.size = size;
+		lu = new float[size * size];
+		pivots = new int[size];
+		buffer = new float[size];
+
+		final double[] row = new double[matrix.getColums()];
+		for (int i = 0; i < size; i++) {
+			matrix.getStorage().getRow(i, row);
+			for (int column = 0; column < size; column++) {
+				lu[i * size + column] = (float) row[column];
+			}
+			pivots[i] = i;
+		}
+
+		for (int k = 0; k < size; k++) {
+			int pivot = k;
+			float max = Math.abs(lu[k * size + k]);
+			for (int i = k + 1; i < size; i++) {
+				final float value = Math.abs(lu[i * size + k]);
+				if (value > max) {
+					max = value;
+					pivot = i;
+				}
+			}
+
+			if (max == 0 || Float.isInfinite(max) || Float.isNaN(max)) {
+				throw new IllegalArgumentException("unsolvable matrix!");
+			}
+
+			if (pivot != k) {
+				for (int column = 0; column < size; column++) {
+					final float temp = lu[k * size + column];
+					lu[k * size + column] = lu[pivot * size + column];
+					lu[pivot * size + column] = temp;
+				}
+
+				final int temp = pivots[k];
+				pivots[k] = pivots[pivot];
+				pivots[pivot] = temp;
+			}
+
+			final int pivotOffset = k * size;
+			final float pivotValue = lu[pivotOffset + k];
+			for (int i = k + 1; i < size; i++) {
+				final int offset = i * size;
+				final float factor = lu[offset + k] / pivotValue;
+				lu[offset + k] = factor;
+
+				if (factor != 0) {
+					for (int column = k + 1; column < size; column++) {
+						lu[offset + column] -= factor * lu[pivotOffset + column];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solve A x = b in single precision.
+	 *
+	 * @param b
+	 * @param x
+	 *            receives the solution
+	 */
+	void solve(final double[] b, final double[] x) {
+		for (int row = 0; row < size; row++) {
+			final int offset = row * size;
+			float sum = (float) b[pivots[row]];
+
+			for (int column = 0; column < row; column++) {
+				sum -= lu[offset + column] * buffer[column];
+			}
+
+			buffer[row] = sum;
+		}
+
+		for (int row = size - 1; row >= 0; row--) {
+			final int offset = row * size;
+			float sum = buffer[row];
+
+			for (int column = row + 1; column < size; column++) {
+				sum -= lu[offset + column] * buffer[column];
+			}
+
+			buffer[row] = sum / lu[offset + row];
+			x[row] = buffer[row];
+		}
+	}
+}
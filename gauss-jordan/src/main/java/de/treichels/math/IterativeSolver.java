@@ -0,0 +1,491 @@
+package de.treichels.math;
+
+/**
+ * <p>
+ * Iterative solver for large square equation systems A x = b.
+ * </p>
+ *
+ * Instead of eliminating the matrix, the solution is improved step by step,
+ * starting from the values passed in x (warm start). Each iteration costs one
+ * pass over the matrix, i.e. O(n<sup>2</sup>) for a dense {@link Matrix} and
+ * O(non-zeros) for a {@link SparseMatrix}. The iteration stops when the
+ * relative residual |b - A x| / |b| drops below the tolerance, the iteration
+ * limit is reached or the {@link ProgressListener} asks to stop.
+ *
+ * <pre>
+ * final IterativeSolver solver = new IterativeSolver(Method.CONJUGATE_GRADIENT);
+ * solver.setTolerance(1e-12);
+ * final Result result = solver.solve(a, b, x);
+ * </pre>
+ *
+ * Jacobi and Gauss-Seidel/SOR converge for strictly diagonally dominant
+ * matrices, conjugate gradient requires a symmetric positive definite matrix.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class IterativeSolver {
+	/**
+	 * The iteration method.
+	 */
+	public enum Method {
+		/**
+		 * Jacobi iteration, all values are updated from the previous iteration.
+		 */
+		JACOBI,
+
+		/**
+		 * Gauss-Seidel iteration, each value is updated from the newest values.
+		 */
+		GAUSS_SEIDEL,
+
+		/**
+		 * Successive over-relaxation, Gauss-Seidel with a relaxation factor (see
+		 * {@link IterativeSolver#setRelaxation(double)}).
+		 */
+		SOR,
+
+		/**
+		 * Conjugate gradient with Jacobi (diagonal) preconditioner.
+		 */
+		CONJUGATE_GRADIENT;
+	}
+
+	/**
+	 * Receives the progress of an iteration.
+	 */
+	@FunctionalInterface
+	public interface ProgressListener {
+		/**
+		 * Called after each iteration.
+		 *
+		 * @param iteration
+		 *            number of the iteration, starting at 1
+		 * @param residual
+		 *            the relative residual, estimated during the sweep for
+		 *            Gauss-Seidel and SOR
+		 * @return <code>true</code> to continue, <code>false</code> to stop
+		 */
+		boolean iteration(int iteration, double residual);
+	}
+
+	/**
+	 * The outcome of {@link IterativeSolver#solve(Matrix, double[], double[])}.
+	 */
+	public static final class Result {
+		private final int iterations;
+		private final double residual;
+		private final boolean converged;
+
+		private Result(final int iterations, final double residual, final boolean converged) {
+			this.iterations = iterations;
+			this.residual = residual;
+			this.converged = converged;
+		}
+
+		/**
+		 * @return the number of iterations done
+		 */
+		public int getIterations() {
+			return iterations;
+		}
+
+		/**
+		 * @return the relative residual |b - A x| / |b| of the returned x
+		 */
+		public double getResidual() {
+			return residual;
+		}
+
+		/**
+		 * @return <code>true</code> if the tolerance was reached
+		 */
+		public boolean isConverged() {
+			return converged;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s after %d iterations, residual %g", converged ? "converged" : "not converged", iterations, residual);
+		}
+	}
+
+	/**
+	 * Row access to the coefficient matrix.
+	 */
+	private interface Operator {
+		double diagonal(int row);
+
+		double dot(int row, double[] x);
+
+		int size();
+	}
+
+	private static Operator operator(final Matrix matrix) {
+		final int size = matrix.getRows();
+
+		if (matrix.getColums() != size) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		final Storage storage = matrix.getStorage();
+		final double[] buffer = new double[size];
+
+		return new Operator() {
+			@Override
+			public double diagonal(final int row) {
+				return storage.get(row, row);
+			}
+
+			@Override
+			public double dot(final int row, final double[] x) {
+				storage.getRow(row, buffer);
+
+				double sum = 0;
+				for (int column = 0; column < size; column++) {
+					sum += buffer[column] * x[column];
+				}
+
+				return sum;
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private static Operator operator(final SparseMatrix matrix) {
+		final int size = matrix.getRows();
+
+		if (matrix.getColumns() != size) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		final int[] pointers = matrix.rowPointers;
+		final int[] columns = matrix.columnIndices;
+		final double[] values = matrix.values;
+
+		return new Operator() {
+			@Override
+			public double diagonal(final int row) {
+				return matrix.get(row, row);
+			}
+
+			@Override
+			public double dot(final int row, final double[] x) {
+				double sum = 0;
+				for (int i = pointers[row]; i < pointers[row + 1]; i++) {
+					sum += values[i] * x[columns[i]];
+				}
+
+				return sum;
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private final Method method;
+	private double tolerance = 1e-10;
+	private int maxIterations = 1000;
+	private double relaxation = 1.5;
+	private ProgressListener listener;
+
+	/**
+	 * Construct a solver using the given method.
+	 *
+	 * @param method
+	 */
+	public IterativeSolver(final Method method) {
+		this.method = method;
+	}
+
+	/**
+	 * @return the progress listener or <code>null</code>
+	 */
+	public ProgressListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * @return the maximum number of iterations
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	/**
+	 * @return the iteration method
+	 */
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return the relaxation factor used by {@link Method#SOR}
+	 */
+	public double getRelaxation() {
+		return relaxation;
+	}
+
+	/**
+	 * @return the relative residual at which the iteration stops
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Set a listener that is called after each iteration.
+	 *
+	 * @param listener
+	 *            the listener or <code>null</code>
+	 */
+	public void setListener(final ProgressListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Set the maximum number of iterations (default: 1000).
+	 *
+	 * @param maxIterations
+	 */
+	public void setMaxIterations(final int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Set the relaxation factor for {@link Method#SOR}, which must be between 0
+	 * and 2 (default: 1.5).
+	 *
+	 * @param relaxation
+	 */
+	public void setRelaxation(final double relaxation) {
+		if (!(relaxation > 0 && relaxation < 2)) {
+			throw new IllegalArgumentException("relaxation must be between 0 and 2!");
+		}
+
+		this.relaxation = relaxation;
+	}
+
+	/**
+	 * Set the relative residual at which the iteration stops (default: 1e-10).
+	 *
+	 * @param tolerance
+	 */
+	public void setTolerance(final double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Solve A x = b for a dense square matrix.
+	 *
+	 * @param a
+	 *            the coefficient matrix
+	 * @param b
+	 *            the right hand side
+	 * @param x
+	 *            the initial guess, receives the solution
+	 * @return the result of the iteration
+	 */
+	public Result solve(final Matrix a, final double[] b, final double[] x) {
+		return solve(operator(a), b, x);
+	}
+
+	/**
+	 * Solve A x = b for a sparse square matrix.
+	 *
+	 * @param a
+	 *            the coefficient matrix
+	 * @param b
+	 *            the right hand side
+	 * @param x
+	 *            the initial guess, receives the solution
+	 * @return the result of the iteration
+	 */
+	public Result solve(final SparseMatrix a, final double[] b, final double[] x) {
+		return solve(operator(a), b, x);
+	}
+
+	private Result solve(final Operator a, final double[] b, final double[] x) {
+		final int size = a.size();
+
+		if (b.length != size || x.length != size) {
+			throw new IllegalArgumentException("malformed vector, wrong dimensions!");
+		}
+
+		final double[] inverseDiagonal = new double[size];
+		for (int row = 0; row < size; row++) {
+			final double diagonal = a.diagonal(row);
+			if (diagonal == 0) {
+				throw new IllegalArgumentException("unsolvable matrix!");
+			}
+
+			inverseDiagonal[row] = 1 / diagonal;
+		}
+
+		double norm = Math.sqrt(dot(b, b));
+		if (norm == 0) {
+			norm = 1;
+		}
+
+		switch (method) {
+		case JACOBI:
+			return jacobi(a, b, x, inverseDiagonal, norm);
+
+		case GAUSS_SEIDEL:
+			return sor(a, b, x, inverseDiagonal, norm, 1);
+
+		case SOR:
+			return sor(a, b, x, inverseDiagonal, norm, relaxation);
+
+		default:
+			return conjugateGradient(a, b, x, inverseDiagonal, norm);
+		}
+	}
+
+	private Result conjugateGradient(final Operator a, final double[] b, final double[] x, final double[] inverseDiagonal, final double norm) {
+		final int size = a.size();
+		final double[] r = new double[size];
+		final double[] z = new double[size];
+		final double[] p = new double[size];
+		final double[] ap = new double[size];
+
+		for (int row = 0; row < size; row++) {
+			r[row] = b[row] - a.dot(row, x);
+			z[row] = r[row] * inverseDiagonal[row];
+			p[row] = z[row];
+		}
+
+		double residual = Math.sqrt(dot(r, r)) / norm;
+		double rz = dot(r, z);
+		int iteration = 0;
+
+		while (residual > tolerance && iteration < maxIterations) {
+			iteration++;
+
+			for (int row = 0; row < size; row++) {
+				ap[row] = a.dot(row, p);
+			}
+
+			final double alpha = rz / dot(p, ap);
+			for (int row = 0; row < size; row++) {
+				x[row] += alpha * p[row];
+				r[row] -= alpha * ap[row];
+				z[row] = r[row] * inverseDiagonal[row];
+			}
+
+			residual = Math.sqrt(dot(r, r)) / norm;
+			if (!progress(iteration, residual)) {
+				break;
+			}
+
+			final double rzNew = dot(r, z);
+			final double beta = rzNew / rz;
+			rz = rzNew;
+
+			for (int row = 0; row < size; row++) {
+				p[row] = z[row] + beta * p[row];
+			}
+		}
+
+		// the updated r drifts away from b - A x by rounding
+		return result(a, b, x, norm, iteration);
+	}
+
+	private Result jacobi(final Operator a, final double[] b, final double[] x, final double[] inverseDiagonal, final double norm) {
+		final int size = a.size();
+		final double[] next = new double[size];
+		int iteration = 0;
+
+		while (iteration < maxIterations) {
+			// the residual of x is calculated while computing the next x
+			double sum = 0;
+			for (int row = 0; row < size; row++) {
+				final double r = b[row] - a.dot(row, x);
+				next[row] = x[row] + r * inverseDiagonal[row];
+				sum += r * r;
+			}
+
+			final double residual = Math.sqrt(sum) / norm;
+			if (residual <= tolerance) {
+				return new Result(iteration, residual, true);
+			}
+
+			iteration++;
+			System.arraycopy(next, 0, x, 0, size);
+
+			if (!progress(iteration, residual)) {
+				break;
+			}
+		}
+
+		// x has moved on since its residual was calculated
+		return result(a, b, x, norm, iteration);
+	}
+
+	private boolean progress(final int iteration, final double residual) {
+		return listener == null || listener.iteration(iteration, residual);
+	}
+
+	/**
+	 * Create the result with the relative residual of x.
+	 */
+	private Result result(final Operator a, final double[] b, final double[] x, final double norm, final int iteration) {
+		double sum = 0;
+		for (int row = 0; row < a.size(); row++) {
+			final double r = b[row] - a.dot(row, x);
+			sum += r * r;
+		}
+
+		final double residual = Math.sqrt(sum) / norm;
+		return new Result(iteration, residual, residual <= tolerance);
+	}
+
+	private Result sor(final Operator a, final double[] b, final double[] x, final double[] inverseDiagonal, final double norm,
+			final double omega) {
+		final int size = a.size();
+		int iteration = 0;
+
+		while (iteration < maxIterations) {
+			// the residual is calculated during the sweep, using the newest values
+			double sum = 0;
+			for (int row = 0; row < size; row++) {
+				final double r = b[row] - a.dot(row, x);
+				x[row] += omega * r * inverseDiagonal[row];
+				sum += r * r;
+			}
+
+			iteration++;
+			final double residual = Math.sqrt(sum) / norm;
+
+			// the sweep residual mixes old and new values, so confirm it
+			if (residual <= tolerance) {
+				final Result result = result(a, b, x, norm, iteration);
+				if (result.isConverged()) {
+					return result;
+				}
+			}
+
+			if (!progress(iteration, residual)) {
+				break;
+			}
+		}
+
+		return result(a, b, x, norm, iteration);
+	}
+
+	private static double dot(final double[] a, final double[] b) {
+		double sum = 0;
+
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+
+		return sum;
+	}
+}
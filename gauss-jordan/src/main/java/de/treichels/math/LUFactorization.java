@@ -0,0 +1,479 @@
+package de.treichels.math;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * LU factorization with partial pivoting of a square coefficient matrix.
+ * </p>
+ *
+ * The matrix A is factorized once into a lower triangular matrix L (with an
+ * implicit unit diagonal), an upper triangular matrix U and a row permutation
+ * P, so that P A = L U. Afterwards, each right hand side b can be solved with
+ * a forward and a back substitution in O(n<sup>2</sup>) instead of the
+ * O(n<sup>3</sup>) needed by {@link Matrix#solve()}.
+ *
+ * <pre>
+ * final LUFactorization lu = new LUFactorization(coefficients);
+ * final double[] x1 = lu.solve(b1);
+ * final double[] x2 = lu.solve(b2);
+ * </pre>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class LUFactorization {
+	/**
+	 * Default panel and tile size of the blocked factorization. 64 x 64 doubles
+	 * (32 KiB) fit into the L1 or L2 cache of current CPUs.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+
+	/** maximum number of steps of the condition estimator */
+	private static final int MAX_ESTIMATE_ITERATIONS = 5;
+
+	/** L (below the diagonal) and U (on and above the diagonal), row-major */
+	private final double[] lu;
+	/** pivots[i] is the row of the original matrix that ended up in row i */
+	private final int[] pivots;
+	private final int size;
+	/** 1-norm (maximum absolute column sum) of the original matrix */
+	private final double norm;
+
+	/**
+	 * Factorize a square matrix with the {@link #DEFAULT_BLOCK_SIZE}. The
+	 * matrix itself is not modified.
+	 *
+	 * @param matrix
+	 * @throws IllegalArgumentException
+	 *             if the matrix is not square or singular
+	 */
+	public LUFactorization(final Matrix matrix) {
+		this(matrix, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * <p>
+	 * Factorize a square matrix using a blocked right-looking algorithm. The
+	 * matrix itself is not modified.
+	 * </p>
+	 * For each panel of <code>blockSize</code> columns:
+	 * <ol>
+	 * <li>factorize the panel with partial pivoting (row swaps are applied to
+	 * the entire rows),</li>
+	 * <li>compute the rows of U right of the panel by forward substitution with
+	 * the unit lower triangle of the panel,</li>
+	 * <li>subtract the product of the panel and these rows from the trailing
+	 * matrix, one tile of <code>blockSize x blockSize</code> cells at a
+	 * time.</li>
+	 * </ol>
+	 * The last step does most of the work and keeps its working set in cache.
+	 * A block size equal or larger than the matrix dimension is the classic
+	 * unblocked algorithm.
+	 *
+	 * @param matrix
+	 * @param blockSize
+	 *            number of columns per panel and tile size of the trailing
+	 *            update
+	 * @throws IllegalArgumentException
+	 *             if the matrix is not square or singular
+	 */
+	public LUFactorization(final Matrix matrix, final int blockSize) {
+		size = matrix.getRows();
+
+		if (matrix.getColums() != size) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("block size must be positive!");
+		}
+
+		lu = new double[size * size];
+		pivots = new int[size];
+
+		final double[] buffer = new double[size];
+		final double[] columnSums = new double[size];
+		for (int row = 0; row < size; row++) {
+			matrix.getStorage().getRow(row, buffer);
+			System.arraycopy(buffer, 0, lu, row * size, size);
+			pivots[row] = row;
+
+			for (int column = 0; column < size; column++) {
+				columnSums[column] += Math.abs(buffer[column]);
+			}
+		}
+
+		double max = 0;
+		for (final double sum : columnSums) {
+			max = Math.max(max, sum);
+		}
+		norm = max;
+
+		for (int panel = 0; panel < size; panel += blockSize) {
+			final int panelEnd = Math.min(size, panel + blockSize);
+
+			factorizePanel(panel, panelEnd);
+
+			if (panelEnd < size) {
+				updateRows(panel, panelEnd);
+				updateTrailingMatrix(panel, panelEnd, blockSize);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Estimate the condition number of the matrix in the 1-norm,
+	 * ||A||<sub>1</sub> ||A<sup>-1</sup>||<sub>1</sub>, without computing the
+	 * inverse.
+	 * </p>
+	 * ||A<sup>-1</sup>||<sub>1</sub> is estimated with Hager's method as
+	 * refined by Higham (the algorithm of LAPACK's <code>dlacon</code>): a few
+	 * solves with A and A<sup>T</sup> search for the column of A<sup>-1</sup>
+	 * with the largest 1-norm. This costs O(n<sup>2</sup>) and the estimate is
+	 * almost always within a factor of 3 of the true value; it never
+	 * overestimates. Large values (approaching 1 / eps) mean the solutions
+	 * have lost most of their accuracy.
+	 *
+	 * @return the estimated condition number
+	 */
+	public double estimateCondition() {
+		final double[] x = new double[size];
+		final double[] y = new double[size];
+		final double[] z = new double[size];
+		double estimate = 0;
+		int previous = -1;
+
+		Arrays.fill(x, 1d / size);
+		for (int iteration = 0; iteration < MAX_ESTIMATE_ITERATIONS; iteration++) {
+			solve(x, y);
+			estimate = Math.max(estimate, norm1(y));
+
+			// z = A^-T sign(y) is the gradient of ||A^-1 x||_1
+			for (int i = 0; i < size; i++) {
+				y[i] = y[i] >= 0 ? 1 : -1;
+			}
+			solveTranspose(y, z);
+
+			int j = 0;
+			double dot = 0;
+			for (int i = 0; i < size; i++) {
+				if (Math.abs(z[i]) > Math.abs(z[j])) {
+					j = i;
+				}
+				dot += z[i] * x[i];
+			}
+
+			// no better unit vector in sight
+			if (Math.abs(z[j]) <= dot || j == previous) {
+				break;
+			}
+
+			Arrays.fill(x, 0);
+			x[j] = 1;
+			previous = j;
+		}
+
+		// Higham's alternative vector catches matrices that fool the search
+		for (int i = 0; i < size; i++) {
+			x[i] = (i % 2 == 0 ? 1 : -1) * (1 + (size > 1 ? (double) i / (size - 1) : 0));
+		}
+		solve(x, y);
+		estimate = Math.max(estimate, 2 * norm1(y) / (3 * size));
+
+		return estimate * norm;
+	}
+
+	/**
+	 * Factorize the columns <code>panel</code> to <code>panelEnd - 1</code>
+	 * with partial pivoting.
+	 *
+	 * @param panel
+	 *            first column of the panel
+	 * @param panelEnd
+	 *            first column after the panel
+	 */
+	private void factorizePanel(final int panel, final int panelEnd) {
+		for (int k = panel; k < panelEnd; k++) {
+			// find pivot
+			int pivot = k;
+			double max = Math.abs(lu[k * size + k]);
+			for (int row = k + 1; row < size; row++) {
+				final double value = Math.abs(lu[row * size + k]);
+				if (value > max) {
+					max = value;
+					pivot = row;
+				}
+			}
+
+			if (max == 0) {
+				throw new IllegalArgumentException("unsolvable matrix!");
+			}
+
+			if (pivot != k) {
+				swapRows(k, pivot);
+			}
+
+			// eliminate below the pivot, inside the panel only
+			final int pivotOffset = k * size;
+			final double pivotValue = lu[pivotOffset + k];
+			for (int row = k + 1; row < size; row++) {
+				final int offset = row * size;
+				final double factor = lu[offset + k] / pivotValue;
+				lu[offset + k] = factor;
+
+				if (factor != 0) {
+					for (int column = k + 1; column < panelEnd; column++) {
+						lu[offset + column] -= factor * lu[pivotOffset + column];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the dimension of the factorized matrix.
+	 *
+	 * @return the number of rows (and columns)
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/** 1-norm of a vector. */
+	private static double norm1(final double[] vector) {
+		double result = 0;
+		for (final double value : vector) {
+			result += Math.abs(value);
+		}
+		return result;
+	}
+
+	/**
+	 * Solve A x = b.
+	 *
+	 * @param b
+	 *            the right hand side
+	 * @return the solution x
+	 */
+	public double[] solve(final double[] b) {
+		final double[] x = new double[size];
+		solve(b, x);
+		return x;
+	}
+
+	/**
+	 * Solve A x = b without allocating any memory.
+	 *
+	 * @param b
+	 *            the right hand side
+	 * @param x
+	 *            receives the solution, must not be the same array as b
+	 */
+	public void solve(final double[] b, final double[] x) {
+		if (b.length != size || x.length != size) {
+			throw new IllegalArgumentException("malformed vector, wrong dimensions!");
+		}
+
+		// forward substitution: L y = P b
+		for (int row = 0; row < size; row++) {
+			final int offset = row * size;
+			double sum = b[pivots[row]];
+
+			for (int column = 0; column < row; column++) {
+				sum -= lu[offset + column] * x[column];
+			}
+
+			x[row] = sum;
+		}
+
+		// back substitution: U x = y
+		for (int row = size - 1; row >= 0; row--) {
+			final int offset = row * size;
+			double sum = x[row];
+
+			for (int column = row + 1; column < size; column++) {
+				sum -= lu[offset + column] * x[column];
+			}
+
+			x[row] = sum / lu[offset + row];
+		}
+	}
+
+	/**
+	 * Solve A X = B for all columns of B at once.
+	 *
+	 * @param b
+	 *            the right hand sides, one per column
+	 * @return the solutions, one per column (in {@link StorageType#FLAT} layout)
+	 */
+	public Matrix solve(final Matrix b) {
+		if (b.getRows() != size) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		final int columns = b.getColums();
+		final double[] x = new double[size * columns];
+		final double[] buffer = new double[columns];
+
+		// forward substitution: L Y = P B, row by row for all columns
+		for (int row = 0; row < size; row++) {
+			final int offset = row * columns;
+			b.getStorage().getRow(pivots[row], buffer);
+			System.arraycopy(buffer, 0, x, offset, columns);
+
+			for (int k = 0; k < row; k++) {
+				final double factor = lu[row * size + k];
+				if (factor != 0) {
+					final int source = k * columns;
+					for (int column = 0; column < columns; column++) {
+						x[offset + column] -= factor * x[source + column];
+					}
+				}
+			}
+		}
+
+		// back substitution: U X = Y
+		for (int row = size - 1; row >= 0; row--) {
+			final int offset = row * columns;
+
+			for (int k = row + 1; k < size; k++) {
+				final double factor = lu[row * size + k];
+				if (factor != 0) {
+					final int source = k * columns;
+					for (int column = 0; column < columns; column++) {
+						x[offset + column] -= factor * x[source + column];
+					}
+				}
+			}
+
+			final double divisor = lu[row * size + row];
+			for (int column = 0; column < columns; column++) {
+				x[offset + column] /= divisor;
+			}
+		}
+
+		return new Matrix(x, size, columns);
+	}
+
+	/**
+	 * Solve A<sup>T</sup> x = b. With P A = L U
+	 * this is U<sup>T</sup> L<sup>T</sup> P x = b, i.e. a forward substitution
+	 * with U<sup>T</sup> and a back substitution with L<sup>T</sup>.
+	 *
+	 * @param b
+	 *            the right hand side
+	 * @param x
+	 *            receives the solution, must not be the same array as b
+	 */
+	public void solveTranspose(final double[] b, final double[] x) {
+		if (b.length != size || x.length != size) {
+			throw new IllegalArgumentException("malformed vector, wrong dimensions!");
+		}
+
+		// forward substitution: U^T w = b, column by column of U
+		System.arraycopy(b, 0, x, 0, size);
+		for (int row = 0; row < size; row++) {
+			final int offset = row * size;
+			final double value = x[row] / lu[offset + row];
+			x[row] = value;
+
+			for (int column = row + 1; column < size; column++) {
+				x[column] -= lu[offset + column] * value;
+			}
+		}
+
+		// back substitution: L^T v = w
+		for (int row = size - 1; row > 0; row--) {
+			final int offset = row * size;
+			final double value = x[row];
+
+			for (int column = 0; column < row; column++) {
+				x[column] -= lu[offset + column] * value;
+			}
+		}
+
+		// x = P^T v
+		final double[] v = Arrays.copyOf(x, size);
+		for (int row = 0; row < size; row++) {
+			x[pivots[row]] = v[row];
+		}
+	}
+
+	/**
+	 * Compute U<sub>12</sub> = L<sub>11</sub><sup>-1</sup> A<sub>12</sub>, i.e.
+	 * the rows of the panel right of it.
+	 *
+	 * @param panel
+	 *            first column of the panel
+	 * @param panelEnd
+	 *            first column after the panel
+	 */
+	private void updateRows(final int panel, final int panelEnd) {
+		for (int k = panel; k < panelEnd; k++) {
+			final int pivotOffset = k * size;
+
+			for (int row = k + 1; row < panelEnd; row++) {
+				final int offset = row * size;
+				final double factor = lu[offset + k];
+
+				if (factor != 0) {
+					for (int column = panelEnd; column < size; column++) {
+						lu[offset + column] -= factor * lu[pivotOffset + column];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute A<sub>22</sub> = A<sub>22</sub> - L<sub>21</sub> U<sub>12</sub>
+	 * tile by tile.
+	 *
+	 * @param panel
+	 *            first column of the panel
+	 * @param panelEnd
+	 *            first column after the panel
+	 * @param blockSize
+	 *            the tile size
+	 */
+	private void updateTrailingMatrix(final int panel, final int panelEnd, final int blockSize) {
+		for (int tileRow = panelEnd; tileRow < size; tileRow += blockSize) {
+			final int tileRowEnd = Math.min(size, tileRow + blockSize);
+
+			for (int tileColumn = panelEnd; tileColumn < size; tileColumn += blockSize) {
+				final int tileColumnEnd = Math.min(size, tileColumn + blockSize);
+
+				for (int row = tileRow; row < tileRowEnd; row++) {
+					final int offset = row * size;
+
+					for (int k = panel; k < panelEnd; k++) {
+						final double factor = lu[offset + k];
+
+						if (factor != 0) {
+							final int pivotOffset = k * size;
+							for (int column = tileColumn; column < tileColumnEnd; column++) {
+								lu[offset + column] -= factor * lu[pivotOffset + column];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void swapRows(final int row1, final int row2) {
+		final int offset1 = row1 * size;
+		final int offset2 = row2 * size;
+
+		for (int column = 0; column < size; column++) {
+			final double temp = lu[offset1 + column];
+			lu[offset1 + column] = lu[offset2 + column];
+			lu[offset2 + column] = temp;
+		}
+
+		final int temp = pivots[row1];
+		pivots[row1] = pivots[row2];
+		pivots[row2] = temp;
+	}
+}
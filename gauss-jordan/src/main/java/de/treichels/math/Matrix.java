@@ -1,7 +1,9 @@
 package de.treichels.math;
 
-import java.util.Arrays;
-import java.util.Locale;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * <p>
@@ -38,7 +40,139 @@ import java.util.Locale;
  *
  */
 public class Matrix {
-	private final double[][] data;
+	/**
+	 * Default number of rows below which {@link #solveParallel(Pivoting)} does
+	 * not use more than one thread.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+
+	/**
+	 * Maximum number of iterative refinement steps in
+	 * {@link #solveMixedPrecision()}.
+	 */
+	public static final int MAX_REFINEMENTS = 30;
+
+	/**
+	 * Memory used for a panel of rows by {@link #solveOutOfCore()} in bytes.
+	 */
+	public static final int DEFAULT_PANEL_SIZE = 16 * 1024 * 1024;
+
+	/**
+	 * Eliminate the pivot column in a range of rows. Ranges larger than the
+	 * granularity are split in halves and processed in parallel.
+	 */
+	private final class EliminationTask extends RecursiveTask<Pivot> {
+		private static final long serialVersionUID = 1L;
+
+		private final int row;
+		private final int from;
+		private final int to;
+		private final Pivoting pivoting;
+		private final int granularity;
+
+		private EliminationTask(final int row, final int from, final int to, final Pivoting pivoting, final int granularity) {
+			this.row = row;
+			this.from = from;
+			this.to = to;
+			this.pivoting = pivoting;
+			this.granularity = granularity;
+		}
+
+		@Override
+		protected Pivot compute() {
+			if (to - from <= granularity) {
+				final Pivot pivot = new Pivot();
+				pivot.reset();
+				eliminate(row, from, to, pivoting, pivot);
+				return pivot;
+			}
+
+			final int middle = (from + to) >>> 1;
+			final EliminationTask upper = new EliminationTask(row, from, middle, pivoting, granularity);
+			final EliminationTask lower = new EliminationTask(row, middle, to, pivoting, granularity);
+
+			upper.fork();
+			final Pivot result = lower.compute();
+			final Pivot pivot = upper.join();
+
+			// prefer the upper rows on ties, like the sequential search does
+			pivot.update(result.row, result.column, result.value);
+			return pivot;
+		}
+	}
+
+	/**
+	 * Best pivot candidate found so far.
+	 */
+	private static final class Pivot {
+		private int row;
+		private int column;
+		private double value;
+
+		private void reset() {
+			row = -1;
+			column = -1;
+			value = 0;
+		}
+
+		private void update(final int row, final int column, final double value) {
+			if (value > this.value) {
+				this.row = row;
+				this.column = column;
+				this.value = value;
+			}
+		}
+	}
+
+	/** format used by {@link #toString()} */
+	private static final MatrixFormat FORMAT = new MatrixFormat();
+
+	/** receives the statistics of all solves, <code>null</code> if disabled */
+	private static volatile SolveListener solveListener = null;
+
+	/**
+	 * @return the listener for solve statistics or <code>null</code>
+	 */
+	public static SolveListener getSolveListener() {
+		return solveListener;
+	}
+
+	/**
+	 * Install a listener that receives the {@link SolveStatistics} of every
+	 * {@link #solve(Pivoting)} and {@link #solveParallel(Pivoting)} in this
+	 * JVM. Without a listener no statistics are collected at all.
+	 *
+	 * @param listener
+	 *            the listener or <code>null</code> to disable statistics
+	 */
+	public static void setSolveListener(final SolveListener listener) {
+		solveListener = listener;
+	}
+
+	private final Storage storage;
+
+	/**
+	 * <p>
+	 * Map a matrix to a region of a file.
+	 * </p>
+	 * The file must contain the cells row-major as little-endian doubles
+	 * starting at the given position; it is extended if needed. All changes to
+	 * the matrix are written to the file, so a matrix larger than the Java heap
+	 * can be solved in place with {@link #solveOutOfCore()}. The mapping stays
+	 * valid after the channel has been closed.
+	 *
+	 * @param channel
+	 *            a channel opened for reading and writing
+	 * @param position
+	 *            the offset of the first cell in the file
+	 * @param rows
+	 * @param columns
+	 * @return a matrix with {@link StorageType#MAPPED} storage
+	 * @throws IOException
+	 */
+	public static Matrix map(final FileChannel channel, final long position, final int rows, final int columns) throws IOException {
+		return new Matrix(BufferStorage.map(channel, position, rows, columns));
+	}
 
 	/**
 	 * Construct a matrix from existing data.
@@ -46,7 +180,23 @@ public class Matrix {
 	 * @param data
 	 */
 	public Matrix(final double[][] data) {
-		this.data = data;
+		storage = new ArrayStorage(data);
+	}
+
+	/**
+	 * Construct a matrix in {@link StorageType#FLAT} layout from existing
+	 * row-major data. The array is used directly, not copied.
+	 *
+	 * @param data
+	 * @param rows
+	 * @param columns
+	 */
+	public Matrix(final double[] data, final int rows, final int columns) {
+		storage = new FlatStorage(data, rows, columns);
+	}
+
+	private Matrix(final Storage storage) {
+		this.storage = storage;
 	}
 
 	/**
@@ -56,13 +206,18 @@ public class Matrix {
 	 * @param columns
 	 */
 	public Matrix(final int rows, final int columns) {
-		data = new double[rows][columns];
+		this(rows, columns, StorageType.ARRAY);
+	}
 
-		for (int row = 0; row < rows; row++) {
-			for (int column = 0; column < columns; column++) {
-				data[row][column] = 0;
-			}
-		}
+	/**
+	 * Construct an empty matrix with given dimensions and storage layout.
+	 *
+	 * @param rows
+	 * @param columns
+	 * @param type
+	 */
+	public Matrix(final int rows, final int columns, final StorageType type) {
+		storage = type.create(rows, columns);
 	}
 
 	/**
@@ -71,14 +226,25 @@ public class Matrix {
 	 * @param other
 	 */
 	public Matrix(final Matrix other) {
+		this(other, other.getStorageType());
+	}
+
+	/**
+	 * Construct a matrix as a copy of another matrix using the given storage
+	 * layout.
+	 *
+	 * @param other
+	 * @param type
+	 */
+	public Matrix(final Matrix other, final StorageType type) {
 		final int rows = other.getRows();
 		final int columns = other.getColums();
-		data = new double[rows][columns];
+		final double[] buffer = new double[columns];
+		storage = type.create(rows, columns);
 
 		for (int row = 0; row < rows; row++) {
-			for (int column = 0; column < columns; column++) {
-				data[row][column] = other.data[row][column];
-			}
+			other.storage.getRow(row, buffer);
+			storage.setRow(row, buffer);
 		}
 	}
 
@@ -99,15 +265,12 @@ public class Matrix {
 	 * @param row2
 	 */
 	public void add(final int row1, final int row2, final double factor) {
-		final int colums = getColums();
-
-		for (int column = 0; column < colums; column++) {
-			data[row2][column] += data[row1][column] * factor;
-		}
+		storage.add(row1, row2, factor);
 	}
 
 	/**
-	 * Two matrixes are equal if their data is equal.
+	 * Two matrixes are equal if their data is equal, regardless of their
+	 * storage layout.
 	 */
 	@Override
 	public boolean equals(final Object obj) {
@@ -120,7 +283,31 @@ public class Matrix {
 		if (getClass() != obj.getClass()) {
 			return false;
 		}
-		return Arrays.deepEquals(data, ((Matrix) obj).data);
+
+		final Matrix other = (Matrix) obj;
+		final int rows = getRows();
+		final int columns = getColums();
+		if (rows != other.getRows() || columns != other.getColums()) {
+			return false;
+		}
+
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				if (Double.doubleToLongBits(get(row, column)) != Double.doubleToLongBits(other.get(row, column))) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Write all changes of a {@link StorageType#MAPPED} matrix to the file.
+	 * This does nothing for the other storage types.
+	 */
+	public void force() {
+		storage.force();
 	}
 
 	/**
@@ -131,7 +318,7 @@ public class Matrix {
 	 * @return the cell value
 	 */
 	public double get(final int row, final int column) {
-		return data[row][column];
+		return storage.get(row, column);
 	}
 
 	/**
@@ -145,7 +332,7 @@ public class Matrix {
 		final double[] result = new double[rows];
 
 		for (int row = 0; row < rows; row++) {
-			result[row] = data[row][column];
+			result[row] = storage.get(row, column);
 		}
 
 		return result;
@@ -157,16 +344,22 @@ public class Matrix {
 	 * @return the column dimension
 	 */
 	public int getColums() {
-		return data[0].length;
+		return storage.getColumns();
 	}
 
 	/**
 	 * Get the data for this matrix as an array of array of double.
 	 *
 	 * @return the data
+	 * @throws UnsupportedOperationException
+	 *             if this matrix does not use {@link StorageType#ARRAY}
 	 */
 	public double[][] getData() {
-		return data;
+		if (storage instanceof ArrayStorage) {
+			return ((ArrayStorage) storage).data;
+		}
+
+		throw new UnsupportedOperationException("getData() is only supported for storage type ARRAY!");
 	}
 
 	/**
@@ -176,13 +369,8 @@ public class Matrix {
 	 * @return the row data
 	 */
 	public double[] getRow(final int row) {
-		final int columns = getColums();
-		final double[] result = new double[columns];
-
-		for (int column = 0; column < columns; column++) {
-			result[column] = data[row][column];
-		}
-
+		final double[] result = new double[getColums()];
+		storage.getRow(row, result);
 		return result;
 	}
 
@@ -192,15 +380,85 @@ public class Matrix {
 	 * @return the row dimension
 	 */
 	public int getRows() {
-		return data.length;
+		return storage.getRows();
 	}
 
 	/**
-	 * The hash code is calculated from the data array.
+	 * Get the backing store of this matrix.
+	 *
+	 * @return the storage
+	 */
+	Storage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Get the memory layout of this matrix.
+	 *
+	 * @return the storage type
+	 */
+	public StorageType getStorageType() {
+		return storage.getType();
+	}
+
+	/**
+	 * The hash code is calculated from the cell values in the same way as
+	 * {@link java.util.Arrays#deepHashCode(Object[])} for the data array.
 	 */
 	@Override
 	public int hashCode() {
-		return Arrays.deepHashCode(data);
+		final int rows = getRows();
+		final int columns = getColums();
+		int result = 1;
+
+		for (int row = 0; row < rows; row++) {
+			int rowHash = 1;
+
+			for (int column = 0; column < columns; column++) {
+				final long bits = Double.doubleToLongBits(get(row, column));
+				rowHash = 31 * rowHash + (int) (bits ^ bits >>> 32);
+			}
+
+			result = 31 * result + rowHash;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Calculate the inverse of this square matrix by solving the augmented
+	 * matrix <code>[A | I]</code> in one pass. This matrix is not modified.
+	 *
+	 * @return the inverse matrix
+	 * @throws IllegalArgumentException
+	 *             if this matrix is not square or singular
+	 */
+	public Matrix inverse() {
+		final int size = getRows();
+
+		if (getColums() != size) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		final Matrix augmented = new Matrix(size, 2 * size, getStorageType());
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				augmented.set(row, column, get(row, column));
+			}
+
+			augmented.set(row, size + row, 1);
+		}
+
+		augmented.solve(Pivoting.PARTIAL);
+
+		final Matrix result = new Matrix(size, size, getStorageType());
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				result.set(row, column, augmented.get(row, size + column));
+			}
+		}
+
+		return result;
 	}
 
 	/**
@@ -210,11 +468,18 @@ public class Matrix {
 	 * @param factor
 	 */
 	public void multiply(final int row, final double factor) {
-		final int colums = getColums();
+		storage.multiply(row, factor);
+	}
 
-		for (int column = 0; column < colums; column++) {
-			data[row][column] *= factor;
-		}
+	/**
+	 * Set a cell value.
+	 *
+	 * @param row
+	 * @param column
+	 * @param value
+	 */
+	public void set(final int row, final int column, final double value) {
+		storage.set(row, column, value);
 	}
 
 	/**
@@ -267,84 +532,613 @@ public class Matrix {
 	 *
 	 * </li>
 	 * </ol>
+	 *
+	 * The matrix may contain more than one right hand side: for an
+	 * <code>n x (n+k)</code> matrix, the last <code>k</code> columns are all
+	 * reduced in the same pass and contain the <code>k</code> solutions
+	 * afterwards. This is the same as <code>solve(Pivoting.NONE)</code>.
+	 *
+	 * @see #solve(Pivoting)
 	 */
 	public void solve() {
+		solve(Pivoting.NONE);
+	}
+
+	/**
+	 * Solve the matrix using the Gauss-Jordan algorithm (see {@link #solve()})
+	 * with the given pivoting strategy.
+	 * <p>
+	 * The search for the next pivot is done while the current pivot column is
+	 * eliminated, so no extra pass over the matrix is needed.
+	 * </p>
+	 *
+	 * @param pivoting
+	 */
+	public void solve(final Pivoting pivoting) {
+		solve(pivoting, null, 0, 0);
+	}
+
+	/** Maximum norm of a vector. */
+	private static double norm(final double[] vector) {
+		double result = 0;
+		for (final double value : vector) {
+			result = Math.max(result, Math.abs(value));
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Solve the matrix in mixed precision.
+	 * </p>
+	 * The coefficients are factorized in single precision (float), which halves
+	 * the memory traffic of the O(n<sup>3</sup>) factorization. The solutions
+	 * are then improved to full double precision by iterative refinement:
+	 *
+	 * <pre>
+	 * r = b - A x    (in double precision)
+	 * solve A d = r  (with the float factors)
+	 * x = x + d
+	 * </pre>
+	 *
+	 * If the refinement does not converge within {@link #MAX_REFINEMENTS}
+	 * steps, because the matrix is too ill-conditioned for single precision,
+	 * the matrix is solved with {@link #solve(Pivoting)} and partial pivoting
+	 * instead. In both cases the matrix looks like after {@link #solve()}.
+	 *
+	 * @return <code>true</code> if the refinement converged,
+	 *         <code>false</code> if the double precision fallback was used
+	 */
+	public boolean solveMixedPrecision() {
 		final int rows = getRows();
 		final int columns = getColums();
 
-		if (columns != rows + 1) {
+		if (columns <= rows) {
 			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
 		}
 
-		for (int row = 0; row < rows; row++) {
-			// make sure cell (row, row) is not zero
-			if (data[row][row] == 0) {
-				int swapRow = row + 1;
-				while (true) {
-					if (swapRow >= rows) {
-						throw new IllegalArgumentException("unsolvable matrix!");
+		final FloatLUFactorization lu;
+		try {
+			lu = new FloatLUFactorization(this, rows);
+		} catch (final IllegalArgumentException e) {
+			solve(Pivoting.PARTIAL);
+			return false;
+		}
+
+		final int count = columns - rows;
+		final double[][] solutions = new double[count][rows];
+		final double[][] residuals = new double[count][rows];
+		final double[] correction = new double[rows];
+		final double[] buffer = new double[columns];
+
+		for (int rhs = 0; rhs < count; rhs++) {
+			lu.solve(getColumn(rows + rhs), solutions[rhs]);
+		}
+
+		// stopping criterion of LAPACK's dsgesv: ||r|| <= ||x|| * ||A|| * eps * sqrt(n)
+		double normA = 0;
+		for (int step = 0; step <= MAX_REFINEMENTS; step++) {
+			// residuals of all right hand sides in one pass over the matrix
+			for (int row = 0; row < rows; row++) {
+				storage.getRow(row, buffer);
+
+				if (step == 0) {
+					double sum = 0;
+					for (int column = 0; column < rows; column++) {
+						sum += Math.abs(buffer[column]);
 					}
+					normA = Math.max(normA, sum);
+				}
 
-					if (data[swapRow][row] != 0) {
-						swap(row, swapRow);
-						break;
-					} else {
-						swapRow++;
+				for (int rhs = 0; rhs < count; rhs++) {
+					final double[] x = solutions[rhs];
+					double sum = buffer[rows + rhs];
+					for (int column = 0; column < rows; column++) {
+						sum -= buffer[column] * x[column];
 					}
+					residuals[rhs][row] = sum;
 				}
 			}
 
-			// normalize
-			multiply(row, 1d / data[row][row]);
+			final double limit = normA * Math.ulp(1d) * Math.sqrt(rows);
+			boolean converged = true;
+			for (int rhs = 0; rhs < count && converged; rhs++) {
+				converged = norm(residuals[rhs]) <= norm(solutions[rhs]) * limit;
+			}
 
-			// substract this row from all other rows
-			for (int subsRow = 0; subsRow < rows; subsRow++) {
-				if (subsRow != row && data[subsRow][row] != 0) {
-					add(row, subsRow, -data[subsRow][row]);
+			if (converged) {
+				break;
+			}
+
+			if (step == MAX_REFINEMENTS) {
+				solve(Pivoting.PARTIAL);
+				return false;
+			}
+
+			for (int rhs = 0; rhs < count; rhs++) {
+				final double[] x = solutions[rhs];
+				lu.solve(residuals[rhs], correction);
+
+				for (int row = 0; row < rows; row++) {
+					x[row] += correction[row];
 				}
 			}
 		}
+
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < rows; column++) {
+				set(row, column, row == column ? 1 : 0);
+			}
+
+			for (int rhs = 0; rhs < count; rhs++) {
+				set(row, rows + rhs, solutions[rhs][row]);
+			}
+		}
+
+		return true;
 	}
 
 	/**
-	 * Swap two columns (row1 = row2 and row2 = row1).
+	 * Subtract the reduced panel rows from a row, so the panel columns become
+	 * zero.
 	 *
-	 * @param row1
-	 * @param row2
+	 * @return <code>true</code> if the row was changed
 	 */
-	public void swap(final int row1, final int row2) {
-		final int colums = getColums();
+	private static boolean eliminatePanel(final double[][] panel, final int first, final int size, final double[] row) {
+		final int columns = row.length;
+		boolean changed = false;
+
+		for (int i = 0; i < size; i++) {
+			final double factor = row[first + i];
 
-		for (int column = 0; column < colums; column++) {
-			final double temp = data[row1][column];
-			data[row1][column] = data[row2][column];
-			data[row2][column] = temp;
+			if (factor != 0) {
+				final double[] panelRow = panel[i];
+				for (int column = first + size; column < columns; column++) {
+					row[column] -= factor * panelRow[column];
+				}
+				row[first + i] = 0;
+				changed = true;
+			}
 		}
+
+		return changed;
 	}
 
-	@Override
-	public String toString() {
+	/**
+	 * Replace panel row i with the first row below the panel that has a non-zero
+	 * value in the pivot column after elimination with the panel rows 0..i-1.
+	 */
+	private void fetchPivot(final double[][] panel, final int first, final int size, final int i, final double[] buffer) {
+		final int rows = getRows();
+		final int column = first + i;
+
+		for (int row = first + size; row < rows; row++) {
+			storage.getRow(row, buffer);
+			eliminatePanel(panel, first, i, buffer);
+
+			if (buffer[column] != 0) {
+				storage.setRow(row, panel[i]);
+				System.arraycopy(buffer, 0, panel[i], 0, buffer.length);
+				return;
+			}
+		}
+
+		throw new IllegalArgumentException("unsolvable matrix!");
+	}
+
+	/**
+	 * Solve the matrix out-of-core with panels of {@link #DEFAULT_PANEL_SIZE}
+	 * bytes (see {@link #solveOutOfCore(int)}).
+	 */
+	public void solveOutOfCore() {
+		solveOutOfCore(Math.max(1, DEFAULT_PANEL_SIZE / Double.BYTES / getColums()));
+	}
+
+	/**
+	 * <p>
+	 * Solve the matrix with the Gauss-Jordan algorithm in panels of rows.
+	 * </p>
+	 * A panel of rows is copied to the heap and reduced there. Then the panel
+	 * is eliminated from all other rows in a single sequential sweep over the
+	 * matrix. The matrix is therefore read and written <code>rows /
+	 * panelRows</code> times instead of <code>rows</code> times as in
+	 * {@link #solve(Pivoting)}, which makes this method suitable for
+	 * {@link StorageType#MAPPED} matrices that do not fit into memory.
+	 * <p>
+	 * The pivot is the largest value in the pivot column within the panel. Rows
+	 * below the panel are only searched if the whole panel column is zero.
+	 * </p>
+	 *
+	 * @param panelRows
+	 *            number of rows per panel
+	 */
+	public void solveOutOfCore(final int panelRows) {
+		final int rows = getRows();
+		final int columns = getColums();
+
+		if (columns <= rows || panelRows < 1) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		final double[][] panel = new double[Math.min(panelRows, rows)][columns];
+		final double[] buffer = new double[columns];
+
+		for (int first = 0; first < rows; first += panel.length) {
+			final int size = Math.min(panel.length, rows - first);
+
+			for (int i = 0; i < size; i++) {
+				storage.getRow(first + i, panel[i]);
+			}
+
+			// Gauss-Jordan elimination within the panel
+			for (int i = 0; i < size; i++) {
+				final int column = first + i;
+				int pivot = i;
+
+				for (int j = i + 1; j < size; j++) {
+					if (Math.abs(panel[j][column]) > Math.abs(panel[pivot][column])) {
+						pivot = j;
+					}
+				}
+
+				if (panel[pivot][column] == 0) {
+					fetchPivot(panel, first, size, i, buffer);
+				} else if (pivot != i) {
+					final double[] temp = panel[i];
+					panel[i] = panel[pivot];
+					panel[pivot] = temp;
+				}
+
+				final double[] pivotRow = panel[i];
+				final double factor = 1 / pivotRow[column];
+				for (int c = column + 1; c < columns; c++) {
+					pivotRow[c] *= factor;
+				}
+				pivotRow[column] = 1;
+
+				for (int j = 0; j < size; j++) {
+					final double[] row = panel[j];
+					final double value = row[column];
+
+					if (j != i && value != 0) {
+						for (int c = column + 1; c < columns; c++) {
+							row[c] -= value * pivotRow[c];
+						}
+						row[column] = 0;
+					}
+				}
+			}
+
+			for (int i = 0; i < size; i++) {
+				storage.setRow(first + i, panel[i]);
+			}
+
+			// eliminate the panel columns from all other rows in one sweep
+			for (int row = 0; row < rows; row++) {
+				if (row >= first && row < first + size) {
+					continue;
+				}
+
+				storage.getRow(row, buffer);
+				if (eliminatePanel(panel, first, size, buffer)) {
+					storage.setRow(row, buffer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solve the matrix in rank-revealing mode with a tolerance of
+	 * <code>rows * eps</code> (see {@link #solveRankRevealing(double)}).
+	 *
+	 * @return the rank of the coefficient matrix
+	 */
+	public int solveRankRevealing() {
+		return solveRankRevealing(getRows() * Math.ulp(1d));
+	}
+
+	/**
+	 * <p>
+	 * Solve a possibly singular matrix with complete pivoting.
+	 * </p>
+	 * The elimination stops as soon as the largest remaining pivot is not
+	 * larger than <code>tolerance</code> times the largest coefficient. The
+	 * number of pivots used so far is the numerical rank <code>r</code> of the
+	 * coefficient matrix. Instead of throwing an exception, the
+	 * <code>n - r</code> free variables are set to 0 and the others are solved
+	 * for (a basic solution). The remaining rows are set to 0, so the matrix is
+	 * in reduced row echelon form with the solutions in the last columns. The
+	 * non-zero coefficients of the free variables describe the null space.
+	 * <p>
+	 * If the system is inconsistent, the basic solution only solves the first
+	 * <code>r</code> equations.
+	 * </p>
+	 *
+	 * @param tolerance
+	 *            relative to the largest coefficient
+	 * @return the rank of the coefficient matrix
+	 */
+	public int solveRankRevealing(final double tolerance) {
 		final int rows = getRows();
 		final int columns = getColums();
 
-		final StringBuilder builder = new StringBuilder();
+		if (columns <= rows) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
 
+		double max = 0;
 		for (int row = 0; row < rows; row++) {
-			for (int column = 0; column < columns; column++) {
-				if (column == 0) {
-					builder.append('|');
+			for (int column = 0; column < rows; column++) {
+				max = Math.max(max, Math.abs(get(row, column)));
+			}
+		}
+
+		// Double.MIN_VALUE keeps the threshold positive for tolerance 0
+		return solve(Pivoting.COMPLETE, null, 0, Math.max(Double.MIN_VALUE, tolerance * max));
+	}
+
+	/**
+	 * Solve the matrix like {@link #solve(Pivoting)}, but eliminate the other
+	 * rows for each pivot in parallel in the common {@link ForkJoinPool}.
+	 * Matrices with less than {@link #DEFAULT_PARALLEL_THRESHOLD} rows are
+	 * solved sequentially.
+	 *
+	 * @param pivoting
+	 */
+	public void solveParallel(final Pivoting pivoting) {
+		solveParallel(pivoting, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Solve the matrix like {@link #solve(Pivoting)}, but eliminate the other
+	 * rows for each pivot in parallel in the given {@link ForkJoinPool}. The
+	 * result is identical to the sequential solution.
+	 *
+	 * @param pivoting
+	 * @param pool
+	 *            the pool to run the elimination in
+	 * @param threshold
+	 *            matrices with less rows are solved sequentially
+	 */
+	public void solveParallel(final Pivoting pivoting, final ForkJoinPool pool, final int threshold) {
+		solve(pivoting, getRows() < threshold ? null : pool, Math.max(1, getRows() / (4 * pool.getParallelism())), 0);
+	}
+
+	/**
+	 * The Gauss-Jordan elimination behind all solve methods.
+	 *
+	 * @param pivoting
+	 * @param pool
+	 *            pool for parallel elimination, <code>null</code> for sequential
+	 * @param granularity
+	 *            number of rows eliminated per parallel task
+	 * @param threshold
+	 *            if positive, stop when the pivot magnitude drops to this
+	 *            threshold instead of failing (rank-revealing mode)
+	 * @return the rank
+	 */
+	private int solve(final Pivoting pivoting, final ForkJoinPool pool, final int granularity, final double threshold) {
+		final int rows = getRows();
+		final int columns = getColums();
+
+		if (columns <= rows) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		final SolveListener listener = solveListener;
+		final SolveStatistics statistics = listener == null ? null : new SolveStatistics(this, pivoting, pool != null);
+		long time = statistics == null ? 0 : System.nanoTime();
+
+		// permutation[column] is the variable currently stored in this column
+		final int[] permutation = pivoting == Pivoting.COMPLETE ? new int[rows] : null;
+		if (permutation != null) {
+			for (int column = 0; column < rows; column++) {
+				permutation[column] = column;
+			}
+		}
+
+		int rank = rows;
+		try {
+			Pivot pivot = new Pivot();
+			if (pivoting != Pivoting.NONE) {
+				for (int row = 0; row < rows; row++) {
+					searchPivot(row, 0, rows, pivoting, pivot);
 				}
+			}
 
-				builder.append(String.format(Locale.US, "%6.2f", data[row][column]));
+			for (int row = 0; row < rows; row++) {
+				// make sure cell (row, row) is not zero
+				if (pivoting == Pivoting.NONE) {
+					if (get(row, row) == 0) {
+						int swapRow = row + 1;
+						while (true) {
+							if (swapRow >= rows) {
+								throw new IllegalArgumentException("unsolvable matrix!");
+							}
 
-				if (column == columns - 1) {
-					builder.append("|\n");
+							if (get(swapRow, row) != 0) {
+								swap(row, swapRow);
+								if (statistics != null) {
+									statistics.rowSwaps++;
+								}
+								break;
+							} else {
+								swapRow++;
+							}
+						}
+					}
 				} else {
-					builder.append(", ");
+					if (pivot.value == 0 || pivot.value <= threshold) {
+						if (threshold <= 0) {
+							throw new IllegalArgumentException("unsolvable matrix!");
+						}
+
+						rank = row;
+						break;
+					}
+
+					if (pivot.row != row) {
+						swap(row, pivot.row);
+						if (statistics != null) {
+							statistics.rowSwaps++;
+						}
+					}
+
+					if (pivot.column != row) {
+						swapColumns(row, pivot.column);
+						final int temp = permutation[row];
+						permutation[row] = permutation[pivot.column];
+						permutation[pivot.column] = temp;
+						if (statistics != null) {
+							statistics.columnSwaps++;
+						}
+					}
+				}
+
+				if (statistics != null) {
+					final long now = System.nanoTime();
+					statistics.pivotingNanos += now - time;
+					statistics.pivot(get(row, row));
+					time = now;
+				}
+
+				// normalize
+				multiply(row, 1d / get(row, row));
+
+				// substract this row from all other rows
+				if (pool == null) {
+					pivot.reset();
+					eliminate(row, 0, rows, pivoting, pivot);
+				} else {
+					pivot = pool.invoke(new EliminationTask(row, 0, rows, pivoting, granularity));
+				}
+
+				if (statistics != null) {
+					final long now = System.nanoTime();
+					statistics.eliminationNanos += now - time;
+					time = now;
+				}
+			}
+
+			// basic solution: all free variables are 0
+			for (int row = rank; row < rows; row++) {
+				for (int column = rank; column < columns; column++) {
+					set(row, column, 0);
+				}
+			}
+
+			// move solutions back into the original variable order
+			if (permutation != null) {
+				for (int column = 0; column < rows; column++) {
+					while (permutation[column] != column) {
+						final int target = permutation[column];
+						swap(column, target);
+						swapColumns(column, target);
+						permutation[column] = permutation[target];
+						permutation[target] = target;
+					}
 				}
 			}
+
+			if (statistics != null) {
+				statistics.permutationNanos += System.nanoTime() - time;
+				statistics.successful = true;
+			}
+		} catch (final IllegalArgumentException e) {
+			if (statistics != null) {
+				statistics.minPivot = 0;
+			}
+			throw e;
+		} finally {
+			if (statistics != null) {
+				listener.solved(statistics);
+			}
+		}
+
+		return rank;
+	}
+
+	/**
+	 * Subtract a multiple of the (normalized) pivot row from rows
+	 * <code>from</code> to <code>to - 1</code>, so that their value in the pivot
+	 * column becomes 0. Rows below the pivot row are searched for the next pivot
+	 * while they are still in cache.
+	 *
+	 * @param row
+	 *            the pivot row
+	 * @param from
+	 *            first row to eliminate (inclusive)
+	 * @param to
+	 *            last row to eliminate (exclusive)
+	 * @param pivoting
+	 * @param pivot
+	 *            receives the best pivot candidate for the next row
+	 */
+	private void eliminate(final int row, final int from, final int to, final Pivoting pivoting, final Pivot pivot) {
+		final int rows = getRows();
+		final int next = row + 1;
+
+		for (int subsRow = from; subsRow < to; subsRow++) {
+			if (subsRow != row) {
+				final double factor = get(subsRow, row);
+				if (factor != 0) {
+					add(row, subsRow, -factor);
+				}
+
+				if (pivoting != Pivoting.NONE && subsRow > row && next < rows) {
+					searchPivot(subsRow, next, rows, pivoting, pivot);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check the cells of a row for a better pivot candidate.
+	 *
+	 * @param row
+	 * @param column
+	 *            the pivot column
+	 * @param rows
+	 *            number of coefficient columns
+	 * @param pivoting
+	 * @param pivot
+	 */
+	private void searchPivot(final int row, final int column, final int rows, final Pivoting pivoting, final Pivot pivot) {
+		if (pivoting == Pivoting.PARTIAL) {
+			pivot.update(row, column, Math.abs(get(row, column)));
+		} else {
+			for (int c = column; c < rows; c++) {
+				pivot.update(row, c, Math.abs(get(row, c)));
+			}
 		}
+	}
 
-		return builder.toString();
+	/**
+	 * Swap two columns (column1 = column2 and column2 = column1).
+	 *
+	 * @param column1
+	 * @param column2
+	 */
+	public void swapColumns(final int column1, final int column2) {
+		storage.swapColumns(column1, column2);
+	}
+
+	/**
+	 * Swap two rows (row1 = row2 and row2 = row1). In
+	 * {@link StorageType#ARRAY} layout the contents of the rows are exchanged,
+	 * so the row arrays returned by {@link #getData()} stay in place. In
+	 * {@link StorageType#FLAT} layout only the row-permutation index is
+	 * updated, no data is copied.
+	 *
+	 * @param row1
+	 * @param row2
+	 */
+	public void swap(final int row1, final int row2) {
+		storage.swap(row1, row2);
+	}
+
+	@Override
+	public String toString() {
+		return FORMAT.format(this, new StringBuilder()).toString();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,408 @@
+package de.treichels.math;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * <p>
+ * Formats matrices and polynomal functions as text.
+ * </p>
+ * The output is appended to a caller-supplied {@link StringBuilder} or
+ * {@link Appendable}, and numbers are formatted with a fixed number of
+ * fraction digits without creating any intermediate objects. A configured
+ * instance can be shared between threads.
+ * <p>
+ * In summary mode only the first and last rows and columns of a large matrix
+ * are shown, separated by "...".
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class MatrixFormat {
+	/** The default number of fraction digits. */
+	public static final int DEFAULT_PRECISION = 2;
+	/** The default minimum width of a cell. */
+	public static final int DEFAULT_WIDTH = 6;
+	/** The maximum number of fraction digits. */
+	public static final int MAX_PRECISION = 15;
+
+	/** all powers of ten that fit into a long */
+	private static final long[] POWERS_OF_TEN = new long[19];
+
+	/** larger values do not fit into a long */
+	private static final double MAX_FAST_VALUE = 1e18;
+
+	private static final String ELLIPSIS = "...";
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	private int precision = DEFAULT_PRECISION;
+	private int width = DEFAULT_WIDTH;
+	private boolean grouping = false;
+	private int maxRows = Integer.MAX_VALUE;
+	private int maxColumns = Integer.MAX_VALUE;
+
+	/**
+	 * Append a value with {@link #getPrecision()} fraction digits, padded with
+	 * spaces to {@link #getWidth()} characters.
+	 *
+	 * @param value
+	 * @param builder
+	 * @return the builder
+	 */
+	public StringBuilder format(final double value, final StringBuilder builder) {
+		final int start = builder.length();
+		appendFixed(value, builder);
+		pad(builder, start);
+		return builder;
+	}
+
+	/**
+	 * Append a matrix, one line per row (see {@link #format(Matrix, StringBuilder)}).
+	 *
+	 * @param matrix
+	 * @param appendable
+	 * @throws IOException
+	 */
+	public void format(final Matrix matrix, final Appendable appendable) throws IOException {
+		if (appendable instanceof StringBuilder) {
+			format(matrix, (StringBuilder) appendable);
+		} else {
+			appendable.append(format(matrix, new StringBuilder()));
+		}
+	}
+
+	/**
+	 * Append a matrix, one line per row:
+	 *
+	 * <pre>
+	 * |  1.00,   2.00,   3.00|
+	 * |  4.00,   5.00,   6.00|
+	 * </pre>
+	 *
+	 * @param matrix
+	 * @param builder
+	 * @return the builder
+	 */
+	public StringBuilder format(final Matrix matrix, final StringBuilder builder) {
+		final int rows = matrix.getRows();
+		final int columns = matrix.getColums();
+		final int top = rows > maxRows ? (maxRows + 1) / 2 : rows;
+		final int bottom = rows > maxRows ? rows - maxRows / 2 : rows;
+
+		for (int row = 0; row < rows; row++) {
+			if (row == top && top < bottom) {
+				builder.append(ELLIPSIS).append('\n');
+				row = bottom - 1;
+			} else {
+				formatRow(matrix, row, columns, builder);
+			}
+		}
+
+		return builder;
+	}
+
+	/**
+	 * Append a polynomal function in a human readable form (see
+	 * {@link #format(PolynomalFunction, StringBuilder)}).
+	 *
+	 * @param function
+	 * @param appendable
+	 * @throws IOException
+	 */
+	public void format(final PolynomalFunction function, final Appendable appendable) throws IOException {
+		if (appendable instanceof StringBuilder) {
+			format(function, (StringBuilder) appendable);
+		} else {
+			appendable.append(format(function, new StringBuilder()));
+		}
+	}
+
+	/**
+	 * Append a polynomal function in a human readable form, e.g.
+	 * <code>0.8 x^3 - 3.4 x + 4</code>. The coefficients are rounded to
+	 * {@link #getPrecision()} fraction digits without trailing zeros, and are
+	 * not padded.
+	 *
+	 * @param function
+	 * @param builder
+	 * @return the builder
+	 */
+	public StringBuilder format(final PolynomalFunction function, final StringBuilder builder) {
+		final double[] coefficients = function.getCoefficients();
+		final int degree = function.getDegree();
+		final int start = builder.length();
+
+		for (int i = 0; i < coefficients.length; i++) {
+			double c = coefficients[i];
+
+			if (c != 0) {
+				if (builder.length() > start) {
+					if (c < 0) {
+						c = -c;
+						builder.append(" - ");
+					} else {
+						builder.append(" + ");
+					}
+				}
+
+				final int p = degree - i;
+				if (c != 1 || p == 0) {
+					appendFixed(c, builder);
+					trimZeros(builder);
+					if (p > 0) {
+						builder.append(' ');
+					}
+				}
+
+				switch (p) {
+				case 0:
+					// no x
+					break;
+
+				case 1:
+					builder.append('x');
+					break;
+
+				default:
+					builder.append("x^").append(p);
+				}
+			}
+		}
+
+		return builder;
+	}
+
+	/**
+	 * @return the maximum number of columns shown in summary mode
+	 */
+	public int getMaxColumns() {
+		return maxColumns;
+	}
+
+	/**
+	 * @return the maximum number of rows shown in summary mode
+	 */
+	public int getMaxRows() {
+		return maxRows;
+	}
+
+	/**
+	 * @return the number of fraction digits
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * @return the minimum width of a cell
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return <code>true</code> if thousands are separated by commas
+	 */
+	public boolean isGrouping() {
+		return grouping;
+	}
+
+	/**
+	 * @param grouping
+	 *            separate thousands by commas (e.g. 1,234.5)
+	 */
+	public void setGrouping(final boolean grouping) {
+		this.grouping = grouping;
+	}
+
+	/**
+	 * @param precision
+	 *            the number of fraction digits between 0 and
+	 *            {@link #MAX_PRECISION}
+	 */
+	public void setPrecision(final int precision) {
+		if (precision < 0 || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("precision must be between 0 and " + MAX_PRECISION + "!");
+		}
+
+		this.precision = precision;
+	}
+
+	/**
+	 * Enable summary mode: matrices with more rows or columns only show the
+	 * first and last ones. Use {@link Integer#MAX_VALUE} to show everything.
+	 *
+	 * @param maxRows
+	 * @param maxColumns
+	 */
+	public void setSummary(final int maxRows, final int maxColumns) {
+		if (maxRows < 1 || maxColumns < 1) {
+			throw new IllegalArgumentException("summary must show at least one row and column!");
+		}
+
+		this.maxRows = maxRows;
+		this.maxColumns = maxColumns;
+	}
+
+	/**
+	 * @param width
+	 *            the minimum width of a cell
+	 */
+	public void setWidth(final int width) {
+		this.width = width;
+	}
+
+	/**
+	 * Append a value rounded half up to {@link #precision} fraction digits.
+	 * Like {@link String#format(String, Object...)}, the shortest decimal
+	 * representation of the value is rounded, so 1.005 becomes 1.01 even though
+	 * the binary value is slightly less than that.
+	 */
+	private void appendFixed(final double value, final StringBuilder builder) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			builder.append(value);
+			return;
+		}
+
+		final double abs = Math.abs(value);
+		if (abs >= MAX_FAST_VALUE) {
+			// rare, so the allocations do not matter
+			builder.append(String.format(Locale.US, grouping ? "%,." + precision + "f" : "%." + precision + "f", value));
+			return;
+		}
+
+		// let the builder produce the shortest decimal digits, then replace them
+		final int start = builder.length();
+		builder.append(abs);
+
+		long digits = 0;
+		int exponent = 0;
+		int index = start;
+		while (index < builder.length() && builder.charAt(index) != '.') {
+			digits = digits * 10 + builder.charAt(index++) - '0';
+		}
+		index++;
+		while (index < builder.length() && builder.charAt(index) != 'E') {
+			digits = digits * 10 + builder.charAt(index++) - '0';
+			exponent--;
+		}
+		if (index < builder.length()) {
+			final boolean negative = builder.charAt(++index) == '-';
+			int power = 0;
+			for (index += negative ? 1 : 0; index < builder.length(); index++) {
+				power = power * 10 + builder.charAt(index) - '0';
+			}
+			exponent += negative ? -power : power;
+		}
+
+		builder.setLength(start);
+
+		// abs == digits * 10^exponent, shift it to precision fraction digits
+		final long integer;
+		final long fraction;
+		if (exponent >= 0) {
+			integer = digits * POWERS_OF_TEN[exponent];
+			fraction = 0;
+		} else if (-exponent <= precision) {
+			integer = digits / POWERS_OF_TEN[-exponent];
+			fraction = digits % POWERS_OF_TEN[-exponent] * POWERS_OF_TEN[precision + exponent];
+		} else {
+			final int drop = -exponent - precision;
+			long rounded = 0;
+			if (drop < POWERS_OF_TEN.length) {
+				rounded = digits / POWERS_OF_TEN[drop];
+				if (digits % POWERS_OF_TEN[drop] >= 5 * POWERS_OF_TEN[drop - 1]) {
+					rounded++;
+				}
+			}
+			integer = rounded / POWERS_OF_TEN[precision];
+			fraction = rounded % POWERS_OF_TEN[precision];
+		}
+
+		if (value < 0 || value == 0 && 1 / value < 0) {
+			builder.append('-');
+		}
+
+		appendInteger(integer, builder);
+
+		if (precision > 0) {
+			builder.append('.');
+			for (int digit = precision - 1; digit >= 0; digit--) {
+				builder.append((char) ('0' + fraction / POWERS_OF_TEN[digit] % 10));
+			}
+		}
+	}
+
+	private void appendInteger(final long value, final StringBuilder builder) {
+		if (!grouping || value < 1000) {
+			builder.append(value);
+			return;
+		}
+
+		appendInteger(value / 1000, builder);
+		final long rest = value % 1000;
+		builder.append(',');
+		if (rest < 100) {
+			builder.append('0');
+		}
+		if (rest < 10) {
+			builder.append('0');
+		}
+		builder.append(rest);
+	}
+
+	private void formatRow(final Matrix matrix, final int row, final int columns, final StringBuilder builder) {
+		final int left = columns > maxColumns ? (maxColumns + 1) / 2 : columns;
+		final int right = columns > maxColumns ? columns - maxColumns / 2 : columns;
+
+		builder.append('|');
+		for (int column = 0; column < columns; column++) {
+			if (column > 0) {
+				builder.append(", ");
+			}
+
+			if (column == left && left < right) {
+				final int start = builder.length();
+				builder.append(ELLIPSIS);
+				pad(builder, start);
+				column = right - 1;
+			} else {
+				format(matrix.get(row, column), builder);
+			}
+		}
+		builder.append("|\n");
+	}
+
+	/**
+	 * Pad the text appended since start to {@link #width} characters.
+	 */
+	private void pad(final StringBuilder builder, final int start) {
+		for (int length = builder.length() - start; length < width; length++) {
+			builder.insert(start, ' ');
+		}
+	}
+
+	/**
+	 * Remove trailing zeros (and a trailing decimal point) of the fraction.
+	 */
+	private void trimZeros(final StringBuilder builder) {
+		if (precision == 0 || builder.indexOf(".", builder.length() - precision - 1) < 0) {
+			return;
+		}
+
+		int length = builder.length();
+		while (builder.charAt(length - 1) == '0') {
+			length--;
+		}
+		if (builder.charAt(length - 1) == '.') {
+			length--;
+		}
+		builder.setLength(length);
+	}
+}
@@ -0,0 +1,298 @@
+package de.treichels.math;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Streaming reader for augmented matrices in delimited text.
+ * </p>
+ * Each line is a row of the matrix. The values of a row are separated by
+ * commas, semicolons, spaces or tabs. One or more blank lines separate
+ * successive equation systems:
+ *
+ * <pre>
+ * 1, 2, 3
+ * 4, 5, 6
+ *
+ * 2 0 4
+ * 0 1 1
+ * </pre>
+ *
+ * The rows are parsed directly into the row-major array of a
+ * {@link StorageType#FLAT} matrix without creating a string per value.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class MatrixReader implements Closeable {
+	private static final int BUFFER_SIZE = 8192;
+
+	/** all powers of ten that are exactly representable as double */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * <p>
+	 * Parse a decimal number.
+	 * </p>
+	 * Numbers with up to 15 significant digits and a decimal exponent of at
+	 * most 22 are converted with a single correctly rounded multiplication or
+	 * division (Clinger's fast path). All other numbers, including
+	 * <code>NaN</code> and <code>Infinity</code>, are passed to
+	 * {@link Double#parseDouble(String)}.
+	 *
+	 * @param chars
+	 * @param length
+	 * @return the value
+	 * @throws NumberFormatException
+	 *             if the characters are not a number
+	 */
+	static double parseDouble(final char[] chars, final int length) {
+		int i = 0;
+		boolean negative = false;
+		if (length > 0 && (chars[0] == '-' || chars[0] == '+')) {
+			negative = chars[0] == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean valid = false;
+		boolean exact = true;
+
+		for (; i < length && chars[i] >= '0' && chars[i] <= '9'; i++) {
+			valid = true;
+			if (digits < 18) {
+				mantissa = mantissa * 10 + chars[i] - '0';
+				if (mantissa != 0) {
+					digits++;
+				}
+			} else {
+				exact &= chars[i] == '0';
+				exponent++;
+			}
+		}
+
+		if (i < length && chars[i] == '.') {
+			for (i++; i < length && chars[i] >= '0' && chars[i] <= '9'; i++) {
+				valid = true;
+				if (digits < 18) {
+					mantissa = mantissa * 10 + chars[i] - '0';
+					if (mantissa != 0) {
+						digits++;
+					}
+					exponent--;
+				} else {
+					exact &= chars[i] == '0';
+				}
+			}
+		}
+
+		if (valid && i < length && (chars[i] == 'e' || chars[i] == 'E')) {
+			boolean negativeExponent = false;
+			i++;
+			if (i < length && (chars[i] == '-' || chars[i] == '+')) {
+				negativeExponent = chars[i] == '-';
+				i++;
+			}
+
+			int value = 0;
+			valid = i < length;
+			for (; i < length && chars[i] >= '0' && chars[i] <= '9'; i++) {
+				value = Math.min(value * 10 + chars[i] - '0', 100000);
+			}
+
+			exponent += negativeExponent ? -value : value;
+		}
+
+		if (valid && i == length && exact && mantissa <= 1L << 53 && exponent >= -22 && exponent <= 22) {
+			final double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+
+		return Double.parseDouble(new String(chars, 0, length));
+	}
+
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position = 0;
+	private int limit = 0;
+	private char[] token = new char[32];
+	private double[] row = new double[16];
+	private int line = 1;
+	private int rows;
+	private int columns;
+
+	/**
+	 * Read matrices from a UTF-8 text file.
+	 *
+	 * @param path
+	 * @throws IOException
+	 */
+	public MatrixReader(final Path path) throws IOException {
+		this(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Read matrices from a reader. The reader is buffered internally.
+	 *
+	 * @param reader
+	 */
+	public MatrixReader(final Reader reader) {
+		this.reader = reader;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**
+	 * Read the next equation system.
+	 *
+	 * @return a matrix in {@link StorageType#FLAT} layout or <code>null</code>
+	 *         at the end of the input
+	 * @throws IOException
+	 *             if the input could not be read or parsed
+	 */
+	public Matrix readMatrix() throws IOException {
+		final double[] data = readData(new double[0]);
+		return data == null ? null : new Matrix(data, rows, columns);
+	}
+
+	/**
+	 * <p>
+	 * Solve all remaining equation systems, one at a time.
+	 * </p>
+	 * Only one system is held in memory: the array of the previous system is
+	 * reused for the next one, so the matrix passed to the consumer is only
+	 * valid until the consumer returns.
+	 *
+	 * @param pivoting
+	 * @param consumer
+	 *            receives each solved matrix
+	 * @return the number of systems solved
+	 * @throws IOException
+	 *             if the input could not be read or parsed
+	 */
+	public int solveAll(final Pivoting pivoting, final Consumer<Matrix> consumer) throws IOException {
+		int count = 0;
+		double[] data = new double[0];
+
+		while ((data = readData(data)) != null) {
+			final Matrix matrix = new Matrix(data, rows, columns);
+			matrix.solve(pivoting);
+			consumer.accept(matrix);
+			count++;
+		}
+
+		return count;
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+
+			if (limit < 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+
+		return buffer[position++];
+	}
+
+	/**
+	 * Read the rows of the next system into data and set rows and columns.
+	 *
+	 * @return data or a larger copy of it, <code>null</code> at the end of the
+	 *         input
+	 */
+	private double[] readData(double[] data) throws IOException {
+		int count;
+		do {
+			count = readRow();
+		} while (count == 0);
+
+		if (count < 0) {
+			return null;
+		}
+
+		columns = count;
+		rows = 0;
+
+		do {
+			if (count != columns) {
+				throw new IOException("malformed matrix in line " + (line - 1) + ", wrong dimensions!");
+			}
+
+			final int size = rows * columns;
+			if (size + columns > data.length) {
+				data = Arrays.copyOf(data, Math.max(2 * data.length, size + columns));
+			}
+
+			System.arraycopy(row, 0, data, size, columns);
+			rows++;
+			count = readRow();
+		} while (count > 0);
+
+		return data;
+	}
+
+	/**
+	 * Parse the next line into row.
+	 *
+	 * @return the number of values, -1 at the end of the input
+	 */
+	private int readRow() throws IOException {
+		int c = read();
+		if (c < 0) {
+			return -1;
+		}
+
+		int count = 0;
+		while (true) {
+			while (c == ' ' || c == '\t' || c == ',' || c == ';') {
+				c = read();
+			}
+
+			if (c < 0 || c == '\n' || c == '\r') {
+				if (c == '\r' && read() != '\n' && limit > 0) {
+					position--;
+				}
+
+				line++;
+				return count;
+			}
+
+			int length = 0;
+			while (c >= 0 && c != ' ' && c != '\t' && c != ',' && c != ';' && c != '\n' && c != '\r') {
+				if (length == token.length) {
+					token = Arrays.copyOf(token, 2 * length);
+				}
+
+				token[length++] = (char) c;
+				c = read();
+			}
+
+			if (count == row.length) {
+				row = Arrays.copyOf(row, 2 * count);
+			}
+
+			try {
+				row[count++] = parseDouble(token, length);
+			} catch (final NumberFormatException e) {
+				throw new IOException("malformed number '" + new String(token, 0, length) + "' in line " + line + "!", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package de.treichels.math;
+
+/**
+ * Pivoting strategy used by {@link Matrix#solve(Pivoting)}.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public enum Pivoting {
+	/**
+	 * Only swap rows if the cell on the main diagonal is exactly 0. The first
+	 * row below with a non-zero value in this column is used.
+	 */
+	NONE,
+
+	/**
+	 * Swap rows so that the value with the largest magnitude in the current
+	 * column ends up on the main diagonal.
+	 */
+	PARTIAL,
+
+	/**
+	 * Swap rows and columns so that the value with the largest magnitude in the
+	 * remaining coefficient sub-matrix ends up on the main diagonal. Column swaps
+	 * are tracked and undone at the end, so the solutions are returned in the
+	 * original order.
+	 */
+	COMPLETE;
+}
@@ -0,0 +1,21 @@
+package de.treichels.math;
+
+/**
+ * Receives the {@link SolveStatistics} of every solved matrix (see
+ * {@link Matrix#setSolveListener(SolveListener)}).
+ * <p>
+ * The listener is called on the solving thread, after the matrix has been
+ * solved or the solve has failed, so it should return quickly.
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+@FunctionalInterface
+public interface SolveListener {
+	/**
+	 * A matrix has been solved.
+	 *
+	 * @param statistics
+	 */
+	void solved(SolveStatistics statistics);
+}
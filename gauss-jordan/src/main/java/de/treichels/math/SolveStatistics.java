@@ -0,0 +1,188 @@
+package de.treichels.math;
+
+/**
+ * <p>
+ * Numerical health and cost of a single {@link Matrix#solve(Pivoting)}.
+ * </p>
+ * The pivots are the magnitudes of the diagonal cells right before they are
+ * normalized. From them two cheap indicators are derived, without touching
+ * any other cells during the elimination:
+ * <ul>
+ * <li>the pivot growth: the largest pivot relative to the largest coefficient
+ * of the original matrix. It is a lower bound of the growth factor
+ * max|a<sub>ij</sub><sup>(k)</sup>| / max|a<sub>ij</sub>|, as the
+ * intermediate cells off the pivots are not measured. Large values indicate
+ * loss of precision during elimination.</li>
+ * <li>the pivot ratio: the ratio of the largest to the smallest pivot. It
+ * hints at ill-conditioning, but it is not a condition estimate and may be
+ * off by orders of magnitude; use
+ * {@link LUFactorization#estimateCondition()} for that.</li>
+ * </ul>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public final class SolveStatistics {
+	private final int rows;
+	private final int columns;
+	private final Pivoting pivoting;
+	private final boolean parallel;
+	private final double maxElement;
+	boolean successful = false;
+	int pivots = 0;
+	int rowSwaps = 0;
+	int columnSwaps = 0;
+	double minPivot = Double.POSITIVE_INFINITY;
+	double maxPivot = 0;
+	long pivotingNanos = 0;
+	long eliminationNanos = 0;
+	long permutationNanos = 0;
+
+	SolveStatistics(final Matrix matrix, final Pivoting pivoting, final boolean parallel) {
+		rows = matrix.getRows();
+		columns = matrix.getColums();
+		this.pivoting = pivoting;
+		this.parallel = parallel;
+
+		double max = 0;
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < rows; column++) {
+				max = Math.max(max, Math.abs(matrix.get(row, column)));
+			}
+		}
+		maxElement = max;
+	}
+
+	/**
+	 * @return the column dimension (coefficients and right hand sides)
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return the number of column swaps (complete pivoting only)
+	 */
+	public int getColumnSwaps() {
+		return columnSwaps;
+	}
+
+	/**
+	 * @return nanoseconds spent eliminating the pivot columns
+	 */
+	public long getEliminationNanos() {
+		return eliminationNanos;
+	}
+
+	/**
+	 * @return the largest pivot magnitude
+	 */
+	public double getMaxPivot() {
+		return maxPivot;
+	}
+
+	/**
+	 * @return the smallest pivot magnitude, 0 if the matrix is singular
+	 */
+	public double getMinPivot() {
+		return minPivot;
+	}
+
+	/**
+	 * @return nanoseconds spent moving the solutions back into the original
+	 *         variable order after complete pivoting
+	 */
+	public long getPermutationNanos() {
+		return permutationNanos;
+	}
+
+	/**
+	 * @return the largest pivot relative to the largest coefficient of the
+	 *         original matrix, a lower bound of the growth factor
+	 */
+	public double getPivotGrowth() {
+		return maxPivot / maxElement;
+	}
+
+	/**
+	 * @return the ratio of the largest to the smallest pivot, not a condition
+	 *         estimate
+	 */
+	public double getPivotRatio() {
+		return maxPivot / minPivot;
+	}
+
+	/**
+	 * @return the number of pivots used
+	 */
+	public int getPivots() {
+		return pivots;
+	}
+
+	/**
+	 * @return the pivoting strategy
+	 */
+	public Pivoting getPivoting() {
+		return pivoting;
+	}
+
+	/**
+	 * @return nanoseconds spent selecting pivots and swapping rows and columns
+	 */
+	public long getPivotingNanos() {
+		return pivotingNanos;
+	}
+
+	/**
+	 * @return the number of row swaps
+	 */
+	public int getRowSwaps() {
+		return rowSwaps;
+	}
+
+	/**
+	 * @return the row dimension
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return the total time of the solve in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return pivotingNanos + eliminationNanos + permutationNanos;
+	}
+
+	/**
+	 * @return <code>true</code> if the elimination was done in parallel
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * @return <code>false</code> if the matrix was unsolvable
+	 */
+	public boolean isSuccessful() {
+		return successful;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SolveStatistics[%dx%d, %s%s, %s, pivots=%d, rowSwaps=%d, columnSwaps=%d, minPivot=%g, pivotGrowth=%g, pivotRatio=%g, nanos=%d/%d/%d]",
+				rows, columns, pivoting, parallel ? " parallel" : "", successful ? "solved" : "failed", pivots, rowSwaps, columnSwaps, minPivot,
+				getPivotGrowth(), getPivotRatio(), pivotingNanos, eliminationNanos, permutationNanos);
+	}
+
+	/**
+	 * Record a pivot.
+	 *
+	 * @param value
+	 */
+	void pivot(final double value) {
+		final double magnitude = Math.abs(value);
+		pivots++;
+		minPivot = Math.min(minPivot, magnitude);
+		maxPivot = Math.max(maxPivot, magnitude);
+	}
+}
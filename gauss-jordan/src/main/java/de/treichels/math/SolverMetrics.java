@@ -0,0 +1,166 @@
+package de.treichels.math;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * A {@link SolveListener} that aggregates the {@link SolveStatistics} of all
+ * solves and exposes them as a JMX MBean, so solver health can be monitored
+ * with any JMX client.
+ * </p>
+ *
+ * <pre>
+ * SolverMetrics.install();
+ * </pre>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class SolverMetrics implements SolveListener, SolverMetricsMBean {
+	/** The default JMX object name. */
+	public static final String OBJECT_NAME = "de.treichels.math:type=SolverMetrics";
+
+	/**
+	 * Register new metrics with the platform MBean server under
+	 * {@link #OBJECT_NAME} and install them as the solve listener of
+	 * {@link Matrix}.
+	 *
+	 * @return the metrics
+	 * @throws JMException
+	 *             if the MBean could not be registered
+	 */
+	public static SolverMetrics install() throws JMException {
+		final SolverMetrics metrics = new SolverMetrics();
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(OBJECT_NAME);
+
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+
+		server.registerMBean(metrics, name);
+		Matrix.setSolveListener(metrics);
+		return metrics;
+	}
+
+	private long solveCount;
+	private long failureCount;
+	private long rowSwaps;
+	private long totalNanos;
+	private long maxNanos;
+	private double maxPivotGrowth;
+	private double maxPivotRatio;
+	private int lastDimension;
+	private double lastMinPivot;
+	private double lastPivotGrowth;
+	private double lastPivotRatio;
+
+	@Override
+	public synchronized double getAverageNanos() {
+		return solveCount == 0 ? 0 : (double) totalNanos / solveCount;
+	}
+
+	@Override
+	public synchronized long getFailureCount() {
+		return failureCount;
+	}
+
+	@Override
+	public synchronized int getLastDimension() {
+		return lastDimension;
+	}
+
+	@Override
+	public synchronized double getLastMinPivot() {
+		return lastMinPivot;
+	}
+
+	@Override
+	public synchronized double getLastPivotGrowth() {
+		return lastPivotGrowth;
+	}
+
+	@Override
+	public synchronized double getLastPivotRatio() {
+		return lastPivotRatio;
+	}
+
+	@Override
+	public synchronized long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public synchronized double getMaxPivotGrowth() {
+		return maxPivotGrowth;
+	}
+
+	@Override
+	public synchronized double getMaxPivotRatio() {
+		return maxPivotRatio;
+	}
+
+	@Override
+	public synchronized long getRowSwaps() {
+		return rowSwaps;
+	}
+
+	@Override
+	public synchronized long getSolveCount() {
+		return solveCount;
+	}
+
+	@Override
+	public synchronized long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Maximum of both values, ignoring a value that is not finite.
+	 */
+	private static double max(final double current, final double value) {
+		return Double.isNaN(value) || Double.isInfinite(value) ? current : Math.max(current, value);
+	}
+
+	@Override
+	public synchronized void reset() {
+		solveCount = 0;
+		failureCount = 0;
+		rowSwaps = 0;
+		totalNanos = 0;
+		maxNanos = 0;
+		maxPivotGrowth = 0;
+		maxPivotRatio = 0;
+		lastDimension = 0;
+		lastMinPivot = 0;
+		lastPivotGrowth = 0;
+		lastPivotRatio = 0;
+	}
+
+	@Override
+	public synchronized void solved(final SolveStatistics statistics) {
+		final long nanos = statistics.getTotalNanos();
+
+		solveCount++;
+		if (!statistics.isSuccessful()) {
+			failureCount++;
+		}
+		rowSwaps += statistics.getRowSwaps();
+		totalNanos += nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+
+		lastDimension = statistics.getRows();
+		lastMinPivot = statistics.getMinPivot();
+		lastPivotGrowth = statistics.getPivotGrowth();
+		lastPivotRatio = statistics.getPivotRatio();
+
+		// a zero pivot makes the ratio infinite and would pin the maximum
+		if (statistics.isSuccessful()) {
+			maxPivotGrowth = max(maxPivotGrowth, lastPivotGrowth);
+			maxPivotRatio = max(maxPivotRatio, lastPivotRatio);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package de.treichels.math;
+
+/**
+ * JMX management interface of {@link SolverMetrics}.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public interface SolverMetricsMBean {
+	/**
+	 * @return the average solve time in nanoseconds
+	 */
+	double getAverageNanos();
+
+	/**
+	 * @return the number of unsolvable matrices
+	 */
+	long getFailureCount();
+
+	/**
+	 * @return the row dimension of the last solve
+	 */
+	int getLastDimension();
+
+	/**
+	 * @return the smallest pivot of the last solve
+	 */
+	double getLastMinPivot();
+
+	/**
+	 * @return the pivot growth of the last solve, see
+	 *         {@link SolveStatistics#getPivotGrowth()}
+	 */
+	double getLastPivotGrowth();
+
+	/**
+	 * @return the pivot ratio of the last solve, see
+	 *         {@link SolveStatistics#getPivotRatio()}
+	 */
+	double getLastPivotRatio();
+
+	/**
+	 * @return the longest solve time in nanoseconds since the last reset
+	 */
+	long getMaxNanos();
+
+	/**
+	 * @return the largest pivot growth of the successful solves since the
+	 *         last reset
+	 */
+	double getMaxPivotGrowth();
+
+	/**
+	 * @return the largest pivot ratio of the successful solves since the last
+	 *         reset
+	 */
+	double getMaxPivotRatio();
+
+	/**
+	 * @return the number of row swaps since the last reset
+	 */
+	long getRowSwaps();
+
+	/**
+	 * @return the number of solves since the last reset
+	 */
+	long getSolveCount();
+
+	/**
+	 * @return the total solve time in nanoseconds since the last reset
+	 */
+	long getTotalNanos();
+
+	/**
+	 * Reset all counters and the values of the last solve.
+	 */
+	void reset();
+}
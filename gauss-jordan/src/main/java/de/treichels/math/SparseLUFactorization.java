@@ -0,0 +1,456 @@
+package de.treichels.math;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Sparse LU factorization with a fill-reducing ordering.
+ * </p>
+ *
+ * The factorization works in three steps:
+ * <ol>
+ * <li>The rows and columns of the matrix are permuted symmetrically with the
+ * reverse Cuthill-McKee ordering of the pattern of A + A<sup>T</sup>. This
+ * moves the non-zero values close to the main diagonal and therefore limits
+ * the fill-in of L and U to the resulting band.</li>
+ * <li>The permuted matrix is factorized column by column with the left-looking
+ * Gilbert-Peierls algorithm. For each column, only the entries of L that are
+ * reachable from its non-zero values are visited, so the work is proportional
+ * to the number of floating point operations rather than n<sup>2</sup>.</li>
+ * <li>Threshold partial pivoting keeps the diagonal entry if its magnitude is
+ * at least {@link #PIVOT_TOLERANCE} times the largest candidate, so the
+ * ordering is preserved whenever that is numerically safe.</li>
+ * </ol>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class SparseLUFactorization {
+	/**
+	 * The diagonal entry is used as pivot if its magnitude is at least this
+	 * fraction of the largest magnitude in the column.
+	 */
+	public static final double PIVOT_TOLERANCE = 0.1;
+
+	/**
+	 * Calculate the reverse Cuthill-McKee ordering of the pattern of A +
+	 * A<sup>T</sup>.
+	 *
+	 * @param matrix
+	 *            a square matrix
+	 * @return ordering[i] is the original row/column that becomes row/column i
+	 */
+	static int[] reverseCuthillMcKee(final SparseMatrix matrix) {
+		final int n = matrix.getRows();
+		final SparseMatrix transposed = matrix.transpose();
+
+		// symmetric adjacency lists without the diagonal
+		final int[] pointers = new int[n + 1];
+		for (final SparseMatrix m : new SparseMatrix[] { matrix, transposed }) {
+			for (int row = 0; row < n; row++) {
+				for (int i = m.rowPointers[row]; i < m.rowPointers[row + 1]; i++) {
+					if (m.columnIndices[i] != row) {
+						pointers[row + 1]++;
+					}
+				}
+			}
+		}
+
+		for (int row = 0; row < n; row++) {
+			pointers[row + 1] += pointers[row];
+		}
+
+		final int[] neighbors = new int[pointers[n]];
+		final int[] next = Arrays.copyOf(pointers, n);
+		for (final SparseMatrix m : new SparseMatrix[] { matrix, transposed }) {
+			for (int row = 0; row < n; row++) {
+				for (int i = m.rowPointers[row]; i < m.rowPointers[row + 1]; i++) {
+					if (m.columnIndices[i] != row) {
+						neighbors[next[row]++] = m.columnIndices[i];
+					}
+				}
+			}
+		}
+
+		// remove duplicates (an entry in A and A^T)
+		final int[] degrees = new int[n];
+		for (int row = 0; row < n; row++) {
+			Arrays.sort(neighbors, pointers[row], pointers[row + 1]);
+			int count = 0;
+			for (int i = pointers[row]; i < pointers[row + 1]; i++) {
+				if (count == 0 || neighbors[i] != neighbors[pointers[row] + count - 1]) {
+					neighbors[pointers[row] + count++] = neighbors[i];
+				}
+			}
+			degrees[row] = count;
+		}
+
+		// nodes by ascending degree (counting sort, stable)
+		final int[] byDegree = new int[n];
+		final int[] offsets = new int[n + 1];
+		for (int node = 0; node < n; node++) {
+			offsets[degrees[node] + 1]++;
+		}
+		for (int degree = 0; degree < n; degree++) {
+			offsets[degree + 1] += offsets[degree];
+		}
+		for (int node = 0; node < n; node++) {
+			byDegree[offsets[degrees[node]]++] = node;
+		}
+
+		// breadth first search, starting each component at a node of minimal
+		// degree and visiting neighbors by ascending degree
+		final int[] ordering = new int[n];
+		final boolean[] visited = new boolean[n];
+		// degree in the upper, node in the lower 32 bits, so they sort by
+		// degree and then by node
+		final long[] candidates = new long[n];
+		int cursor = 0;
+		int head = 0;
+		int tail = 0;
+
+		while (tail < n) {
+			// unvisited node of minimal degree, nodes before the cursor are all
+			// visited
+			while (visited[byDegree[cursor]]) {
+				cursor++;
+			}
+			final int start = byDegree[cursor];
+
+			visited[start] = true;
+			ordering[tail++] = start;
+
+			while (head < tail) {
+				final int node = ordering[head++];
+				int count = 0;
+
+				for (int i = pointers[node]; i < pointers[node] + degrees[node]; i++) {
+					final int neighbor = neighbors[i];
+					if (!visited[neighbor]) {
+						visited[neighbor] = true;
+						candidates[count++] = (long) degrees[neighbor] << 32 | neighbor;
+					}
+				}
+
+				Arrays.sort(candidates, 0, count);
+				for (int i = 0; i < count; i++) {
+					ordering[tail++] = (int) candidates[i];
+				}
+			}
+		}
+
+		// reverse
+		for (int i = 0, j = n - 1; i < j; i++, j--) {
+			final int temp = ordering[i];
+			ordering[i] = ordering[j];
+			ordering[j] = temp;
+		}
+
+		return ordering;
+	}
+
+	private final int size;
+	/** ordering[i] is the original row/column that became row/column i */
+	private final int[] ordering;
+	/** pivots[i] is the step in which row i of the permuted matrix was used */
+	private final int[] pivots;
+
+	// L in CSC format with unit diagonal stored first in each column
+	private final int[] lPointers;
+	private int[] lIndices;
+	private double[] lValues;
+
+	// U in CSC format with the diagonal stored last in each column
+	private final int[] uPointers;
+	private int[] uIndices;
+	private double[] uValues;
+
+	/**
+	 * Factorize a square sparse matrix using the reverse Cuthill-McKee ordering.
+	 *
+	 * @param matrix
+	 * @throws IllegalArgumentException
+	 *             if the matrix is not square or singular
+	 */
+	public SparseLUFactorization(final SparseMatrix matrix) {
+		this(matrix, true);
+	}
+
+	/**
+	 * Factorize a square sparse matrix.
+	 *
+	 * @param matrix
+	 * @param reorder
+	 *            use the fill-reducing reverse Cuthill-McKee ordering
+	 * @throws IllegalArgumentException
+	 *             if the matrix is not square or singular
+	 */
+	public SparseLUFactorization(final SparseMatrix matrix, final boolean reorder) {
+		size = matrix.getRows();
+
+		if (matrix.getColumns() != size) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		if (reorder) {
+			ordering = reverseCuthillMcKee(matrix);
+		} else {
+			ordering = new int[size];
+			for (int i = 0; i < size; i++) {
+				ordering[i] = i;
+			}
+		}
+
+		final int[] inverse = new int[size];
+		for (int i = 0; i < size; i++) {
+			inverse[ordering[i]] = i;
+		}
+
+		// permuted matrix in CSC format, i.e. column j holds original column
+		// ordering[j] with renumbered rows
+		final SparseMatrix columns = matrix.transpose();
+		final int[] bPointers = new int[size + 1];
+		final int[] bIndices = new int[matrix.getNonZeros()];
+		final double[] bValues = new double[matrix.getNonZeros()];
+		for (int j = 0; j < size; j++) {
+			final int column = ordering[j];
+			int count = bPointers[j];
+
+			for (int i = columns.rowPointers[column]; i < columns.rowPointers[column + 1]; i++) {
+				bIndices[count] = inverse[columns.columnIndices[i]];
+				bValues[count++] = columns.values[i];
+			}
+
+			bPointers[j + 1] = count;
+		}
+
+		pivots = new int[size];
+		Arrays.fill(pivots, -1);
+
+		final int capacity = 4 * matrix.getNonZeros() + size;
+		lPointers = new int[size + 1];
+		lIndices = new int[capacity];
+		lValues = new double[capacity];
+		uPointers = new int[size + 1];
+		uIndices = new int[capacity];
+		uValues = new double[capacity];
+
+		final double[] x = new double[size];
+		final int[] reach = new int[size];
+		final int[] stack = new int[size];
+		final int[] positions = new int[size];
+		final int[] marks = new int[size];
+		int lCount = 0;
+		int uCount = 0;
+
+		for (int k = 0; k < size; k++) {
+			lPointers[k] = lCount;
+			uPointers[k] = uCount;
+
+			if (lCount + size > lIndices.length) {
+				lIndices = Arrays.copyOf(lIndices, 2 * lIndices.length + size);
+				lValues = Arrays.copyOf(lValues, lIndices.length);
+			}
+
+			if (uCount + size > uIndices.length) {
+				uIndices = Arrays.copyOf(uIndices, 2 * uIndices.length + size);
+				uValues = Arrays.copyOf(uValues, uIndices.length);
+			}
+
+			// solve L x = B(:,k) for the non-zero pattern of column k
+			final int top = reach(k, bPointers, bIndices, reach, stack, positions, marks);
+
+			for (int p = top; p < size; p++) {
+				x[reach[p]] = 0;
+			}
+
+			for (int p = bPointers[k]; p < bPointers[k + 1]; p++) {
+				x[bIndices[p]] = bValues[p];
+			}
+
+			for (int p = top; p < size; p++) {
+				final int j = reach[p];
+				final int column = pivots[j];
+
+				if (column >= 0) {
+					final double value = x[j];
+					for (int i = lPointers[column] + 1; i < lPointers[column + 1]; i++) {
+						x[lIndices[i]] -= lValues[i] * value;
+					}
+				}
+			}
+
+			// split into U (pivoted rows) and pivot candidates
+			int pivot = -1;
+			double max = -1;
+			for (int p = top; p < size; p++) {
+				final int row = reach[p];
+
+				if (pivots[row] < 0) {
+					final double value = Math.abs(x[row]);
+					if (value > max) {
+						max = value;
+						pivot = row;
+					}
+				} else {
+					uIndices[uCount] = pivots[row];
+					uValues[uCount++] = x[row];
+				}
+			}
+
+			if (pivot < 0 || max <= 0) {
+				throw new IllegalArgumentException("unsolvable matrix!");
+			}
+
+			// prefer the diagonal to preserve the fill-reducing ordering
+			if (pivots[k] < 0 && Math.abs(x[k]) >= PIVOT_TOLERANCE * max) {
+				pivot = k;
+			}
+
+			final double pivotValue = x[pivot];
+			uIndices[uCount] = k;
+			uValues[uCount++] = pivotValue;
+			pivots[pivot] = k;
+
+			lIndices[lCount] = pivot;
+			lValues[lCount++] = 1;
+			for (int p = top; p < size; p++) {
+				final int row = reach[p];
+
+				if (pivots[row] < 0) {
+					lIndices[lCount] = row;
+					lValues[lCount++] = x[row] / pivotValue;
+				}
+
+				x[row] = 0;
+			}
+		}
+
+		lPointers[size] = lCount;
+		uPointers[size] = uCount;
+
+		// renumber the rows of L in pivot order
+		for (int p = 0; p < lCount; p++) {
+			lIndices[p] = pivots[lIndices[p]];
+		}
+	}
+
+	/**
+	 * Get the number of values stored in L and U.
+	 *
+	 * @return the number of non-zero values of both factors
+	 */
+	public int getNonZeros() {
+		return lPointers[size] + uPointers[size];
+	}
+
+	/**
+	 * Get the dimension of the factorized matrix.
+	 *
+	 * @return the number of rows (and columns)
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Find all rows that become non-zero when solving L x = B(:,k) and sort
+	 * them topologically, using a non-recursive depth first search through the
+	 * columns of L.
+	 *
+	 * @return the start of the rows in reach, which are stored up to its end
+	 */
+	private int reach(final int k, final int[] bPointers, final int[] bIndices, final int[] reach, final int[] stack, final int[] positions,
+			final int[] marks) {
+		final int mark = k + 1;
+		int top = size;
+
+		for (int p = bPointers[k]; p < bPointers[k + 1]; p++) {
+			final int start = bIndices[p];
+			if (marks[start] == mark) {
+				continue;
+			}
+
+			int head = 0;
+			stack[0] = start;
+
+			while (head >= 0) {
+				final int j = stack[head];
+				final int column = pivots[j];
+
+				if (marks[j] != mark) {
+					marks[j] = mark;
+					positions[head] = column < 0 ? 0 : lPointers[column];
+				}
+
+				boolean done = true;
+				final int end = column < 0 ? 0 : lPointers[column + 1];
+				for (int i = positions[head]; i < end; i++) {
+					final int row = lIndices[i];
+					if (marks[row] != mark) {
+						positions[head] = i;
+						stack[++head] = row;
+						done = false;
+						break;
+					}
+				}
+
+				if (done) {
+					head--;
+					reach[--top] = j;
+				}
+			}
+		}
+
+		return top;
+	}
+
+	/**
+	 * Solve A x = b.
+	 *
+	 * @param b
+	 *            the right hand side
+	 * @return the solution x
+	 */
+	public double[] solve(final double[] b) {
+		if (b.length != size) {
+			throw new IllegalArgumentException("malformed vector, wrong dimensions!");
+		}
+
+		// apply ordering and row pivots
+		final double[] y = new double[size];
+		for (int i = 0; i < size; i++) {
+			y[pivots[i]] = b[ordering[i]];
+		}
+
+		// L y = P b
+		for (int j = 0; j < size; j++) {
+			final double value = y[j];
+			if (value != 0) {
+				for (int p = lPointers[j] + 1; p < lPointers[j + 1]; p++) {
+					y[lIndices[p]] -= lValues[p] * value;
+				}
+			}
+		}
+
+		// U z = y
+		for (int j = size - 1; j >= 0; j--) {
+			final int diagonal = uPointers[j + 1] - 1;
+			final double value = y[j] / uValues[diagonal];
+			y[j] = value;
+
+			if (value != 0) {
+				for (int p = uPointers[j]; p < diagonal; p++) {
+					y[uIndices[p]] -= uValues[p] * value;
+				}
+			}
+		}
+
+		// undo ordering
+		final double[] x = new double[size];
+		for (int i = 0; i < size; i++) {
+			x[ordering[i]] = y[i];
+		}
+
+		return x;
+	}
+}
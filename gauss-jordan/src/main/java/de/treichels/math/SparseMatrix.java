@@ -0,0 +1,299 @@
+package de.treichels.math;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A sparse matrix in compressed sparse row (CSR) format.
+ * </p>
+ *
+ * Only the non-zero cells are stored in three arrays:
+ * <ul>
+ * <li><code>values</code> - the non-zero values, row by row</li>
+ * <li><code>columnIndices</code> - the column of each value, ascending within
+ * a row</li>
+ * <li><code>rowPointers</code> - the index of the first value of each row in
+ * the other two arrays, plus the total number of values at the end</li>
+ * </ul>
+ *
+ * <b>Example:</b>
+ *
+ * <pre>
+ * |5 0 0|    values        = {5, 3, 2, 1}
+ * |0 3 2| => columnIndices = {0, 1, 2, 0}
+ * |1 0 0|    rowPointers   = {0, 1, 3, 4}
+ * </pre>
+ *
+ * Memory and the cost of all operations scale with the number of non-zero
+ * values. Sparse equation systems are solved with a
+ * {@link SparseLUFactorization}.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class SparseMatrix {
+	/**
+	 * Construct a sparse matrix from a list of (row, column, value) triplets in
+	 * any order. Values for the same cell are added up, values of 0 are
+	 * dropped.
+	 *
+	 * @param rows
+	 * @param columns
+	 * @param rowIndices
+	 * @param columnIndices
+	 * @param values
+	 * @return the sparse matrix
+	 */
+	public static SparseMatrix fromTriplets(final int rows, final int columns, final int[] rowIndices, final int[] columnIndices,
+			final double[] values) {
+		final int length = values.length;
+
+		if (rowIndices.length != length || columnIndices.length != length) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		// count values per row
+		final int[] rowPointers = new int[rows + 1];
+		for (int i = 0; i < length; i++) {
+			if (rowIndices[i] < 0 || rowIndices[i] >= rows || columnIndices[i] < 0 || columnIndices[i] >= columns) {
+				throw new IllegalArgumentException("malformed matrix, index out of range!");
+			}
+
+			rowPointers[rowIndices[i] + 1]++;
+		}
+
+		for (int row = 0; row < rows; row++) {
+			rowPointers[row + 1] += rowPointers[row];
+		}
+
+		// scatter into rows
+		final int[] next = Arrays.copyOf(rowPointers, rows);
+		final int[] unsortedColumns = new int[length];
+		final double[] unsortedValues = new double[length];
+		for (int i = 0; i < length; i++) {
+			final int index = next[rowIndices[i]]++;
+			unsortedColumns[index] = columnIndices[i];
+			unsortedValues[index] = values[i];
+		}
+
+		// sort each row by column, sum up duplicates and drop zeros
+		final int[] resultColumns = new int[length];
+		final double[] resultValues = new double[length];
+		final double[] dense = new double[columns];
+		final int[] last = new int[columns];
+		Arrays.fill(last, -1);
+		int count = 0;
+
+		for (int row = 0; row < rows; row++) {
+			final int start = rowPointers[row];
+			final int end = rowPointers[row + 1];
+			final int rowStart = count;
+
+			for (int i = start; i < end; i++) {
+				final int column = unsortedColumns[i];
+				if (last[column] != row) {
+					last[column] = row;
+					dense[column] = 0;
+					resultColumns[count++] = column;
+				}
+
+				dense[column] += unsortedValues[i];
+			}
+
+			Arrays.sort(resultColumns, rowStart, count);
+
+			int kept = rowStart;
+			for (int i = rowStart; i < count; i++) {
+				final int column = resultColumns[i];
+				if (dense[column] != 0) {
+					resultColumns[kept] = column;
+					resultValues[kept++] = dense[column];
+				}
+			}
+
+			count = kept;
+			rowPointers[row] = rowStart;
+		}
+
+		rowPointers[rows] = count;
+
+		return new SparseMatrix(rows, columns, rowPointers, Arrays.copyOf(resultColumns, count), Arrays.copyOf(resultValues, count));
+	}
+
+	private final int rows;
+	private final int columns;
+	final int[] rowPointers;
+	final int[] columnIndices;
+	final double[] values;
+
+	/**
+	 * Construct a sparse matrix from existing CSR data. The arrays are used
+	 * directly, not copied. The column indices within each row must be
+	 * ascending.
+	 *
+	 * @param rows
+	 * @param columns
+	 * @param rowPointers
+	 * @param columnIndices
+	 * @param values
+	 */
+	public SparseMatrix(final int rows, final int columns, final int[] rowPointers, final int[] columnIndices, final double[] values) {
+		if (rows < 1 || columns < 1 || rowPointers.length != rows + 1 || columnIndices.length < rowPointers[rows]
+				|| values.length < rowPointers[rows]) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		this.rows = rows;
+		this.columns = columns;
+		this.rowPointers = rowPointers;
+		this.columnIndices = columnIndices;
+		this.values = values;
+	}
+
+	/**
+	 * Construct a sparse matrix from the non-zero cells of a dense matrix.
+	 *
+	 * @param matrix
+	 */
+	public SparseMatrix(final Matrix matrix) {
+		rows = matrix.getRows();
+		columns = matrix.getColums();
+		rowPointers = new int[rows + 1];
+
+		int count = 0;
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				if (matrix.get(row, column) != 0) {
+					count++;
+				}
+			}
+		}
+
+		columnIndices = new int[count];
+		values = new double[count];
+
+		count = 0;
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				final double value = matrix.get(row, column);
+				if (value != 0) {
+					columnIndices[count] = column;
+					values[count++] = value;
+				}
+			}
+
+			rowPointers[row + 1] = count;
+		}
+	}
+
+	/**
+	 * Get a cell value.
+	 *
+	 * @param row
+	 * @param column
+	 * @return the cell value
+	 */
+	public double get(final int row, final int column) {
+		final int index = Arrays.binarySearch(columnIndices, rowPointers[row], rowPointers[row + 1], column);
+		return index >= 0 ? values[index] : 0;
+	}
+
+	/**
+	 * Get the number of columns.
+	 *
+	 * @return the column dimension
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Get the number of stored (non-zero) values.
+	 *
+	 * @return the number of non-zero values
+	 */
+	public int getNonZeros() {
+		return rowPointers[rows];
+	}
+
+	/**
+	 * Get the number of rows.
+	 *
+	 * @return the row dimension
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Multiply this matrix with a vector (y = A x).
+	 *
+	 * @param x
+	 * @param y
+	 *            receives the result, must not be the same array as x
+	 */
+	public void multiply(final double[] x, final double[] y) {
+		if (x.length != columns || y.length != rows) {
+			throw new IllegalArgumentException("malformed vector, wrong dimensions!");
+		}
+
+		for (int row = 0; row < rows; row++) {
+			double sum = 0;
+
+			for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+				sum += values[i] * x[columnIndices[i]];
+			}
+
+			y[row] = sum;
+		}
+	}
+
+	/**
+	 * Convert this matrix into a dense matrix.
+	 *
+	 * @return the dense matrix
+	 */
+	public Matrix toMatrix() {
+		final Matrix matrix = new Matrix(rows, columns);
+
+		for (int row = 0; row < rows; row++) {
+			for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+				matrix.set(row, columnIndices[i], values[i]);
+			}
+		}
+
+		return matrix;
+	}
+
+	/**
+	 * Calculate the transposed matrix. The result of transposing a CSR matrix
+	 * is the same matrix in compressed sparse column (CSC) format.
+	 *
+	 * @return the transposed matrix
+	 */
+	public SparseMatrix transpose() {
+		final int count = getNonZeros();
+		final int[] resultPointers = new int[columns + 1];
+		final int[] resultIndices = new int[count];
+		final double[] resultValues = new double[count];
+
+		for (int i = 0; i < count; i++) {
+			resultPointers[columnIndices[i] + 1]++;
+		}
+
+		for (int column = 0; column < columns; column++) {
+			resultPointers[column + 1] += resultPointers[column];
+		}
+
+		// rows are visited in ascending order, so the result is sorted as well
+		final int[] next = Arrays.copyOf(resultPointers, columns);
+		for (int row = 0; row < rows; row++) {
+			for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+				final int index = next[columnIndices[i]]++;
+				resultIndices[index] = row;
+				resultValues[index] = values[i];
+			}
+		}
+
+		return new SparseMatrix(columns, rows, resultPointers, resultIndices, resultValues);
+	}
+}
@@ -0,0 +1,120 @@
+package de.treichels.math;
+
+/**
+ * The backing store of a {@link Matrix}. All row operations are implemented
+ * here, so each layout can use the fastest access pattern available to it.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+abstract class Storage {
+	/**
+	 * Add row1 multiplied with a factor to row2 and store the result in row2.
+	 *
+	 * @param row1
+	 * @param row2
+	 * @param factor
+	 */
+	abstract void add(int row1, int row2, double factor);
+
+	/**
+	 * Write all changes to the underlying file, if there is one.
+	 */
+	void force() {
+		// nothing to do for heap storage
+	}
+
+	/**
+	 * Get a cell value.
+	 *
+	 * @param row
+	 * @param column
+	 * @return the cell value
+	 */
+	abstract double get(int row, int column);
+
+	/**
+	 * @return the column dimension
+	 */
+	abstract int getColumns();
+
+	/**
+	 * Copy all values in a row into the given array.
+	 *
+	 * @param row
+	 * @param result
+	 *            array with at least {@link #getColumns()} elements
+	 */
+	void getRow(final int row, final double[] result) {
+		final int columns = getColumns();
+
+		for (int column = 0; column < columns; column++) {
+			result[column] = get(row, column);
+		}
+	}
+
+	/**
+	 * @return the row dimension
+	 */
+	abstract int getRows();
+
+	/**
+	 * @return the layout of this storage
+	 */
+	abstract StorageType getType();
+
+	/**
+	 * Multiply a row with a factor.
+	 *
+	 * @param row
+	 * @param factor
+	 */
+	abstract void multiply(int row, double factor);
+
+	/**
+	 * Set a cell value.
+	 *
+	 * @param row
+	 * @param column
+	 * @param value
+	 */
+	abstract void set(int row, int column, double value);
+
+	/**
+	 * Copy all values of a row from the given array.
+	 *
+	 * @param row
+	 * @param values
+	 *            array with at least {@link #getColumns()} elements
+	 */
+	void setRow(final int row, final double[] values) {
+		final int columns = getColumns();
+
+		for (int column = 0; column < columns; column++) {
+			set(row, column, values[column]);
+		}
+	}
+
+	/**
+	 * Swap two rows.
+	 *
+	 * @param row1
+	 * @param row2
+	 */
+	abstract void swap(int row1, int row2);
+
+	/**
+	 * Swap two columns.
+	 *
+	 * @param column1
+	 * @param column2
+	 */
+	void swapColumns(final int column1, final int column2) {
+		final int rows = getRows();
+
+		for (int row = 0; row < rows; row++) {
+			final double temp = get(row, column1);
+			set(row, column1, get(row, column2));
+			set(row, column2, temp);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package de.treichels.math;
+
+/**
+ * The memory layout used to store the cells of a {@link Matrix}.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public enum StorageType {
+	/**
+	 * One <code>double[]</code> per row (i.e. <code>double[][]</code>). This is
+	 * the default and the only layout that supports {@link Matrix#getData()}.
+	 */
+	ARRAY,
+
+	/**
+	 * A single contiguous row-major <code>double[]</code>. Rows are addressed
+	 * through a row-permutation index, so {@link Matrix#swap(int, int)} does not
+	 * copy any data.
+	 */
+	FLAT,
+
+	/**
+	 * Row-major little-endian doubles in direct {@link java.nio.ByteBuffer}s
+	 * outside of the Java heap. Large matrices do not increase the garbage
+	 * collection pauses.
+	 */
+	DIRECT,
+
+	/**
+	 * Row-major little-endian doubles in a memory-mapped file (see
+	 * {@link Matrix#map(java.nio.channels.FileChannel, long, int, int)}). The
+	 * matrix may be larger than the Java heap and is paged in and out by the
+	 * operating system. Empty matrices of this type are mapped to a temporary
+	 * file.
+	 */
+	MAPPED;
+
+	/**
+	 * Create an empty storage of this type.
+	 *
+	 * @param rows
+	 * @param columns
+	 * @return the new storage
+	 */
+	Storage create(final int rows, final int columns) {
+		switch (this) {
+		case FLAT:
+			return new FlatStorage(rows, columns);
+
+		case DIRECT:
+			return BufferStorage.allocateDirect(rows, columns);
+
+		case MAPPED:
+			return BufferStorage.createTemporary(rows, columns);
+
+		default:
+			return new ArrayStorage(new double[rows][columns]);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package de.treichels.math;
+
+/**
+ * <p>
+ * A square tridiagonal matrix, i.e. a matrix where all cells except the main
+ * diagonal and the two diagonals directly above and below it are 0.
+ * </p>
+ *
+ * Only the three diagonals are stored:
+ *
+ * <pre>
+ * |d<sub>0</sub> u<sub>0</sub>  0  0 |
+ * |l<sub>1</sub> d<sub>1</sub> u<sub>1</sub>  0 |
+ * | 0 l<sub>2</sub> d<sub>2</sub> u<sub>2</sub>|
+ * | 0  0 l<sub>3</sub> d<sub>3</sub>|
+ * </pre>
+ *
+ * The equation system is solved with the Thomas algorithm in O(n) time and
+ * memory. It does not pivot and is therefore intended for diagonally dominant
+ * or symmetric positive definite systems like the one of a cubic spline.
+ * <p>
+ * Instances are not thread-safe: solve re-uses an internal buffer, so
+ * concurrent solves on the same instance need external synchronization or
+ * separate instances.
+ * </p>
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class TridiagonalMatrix {
+	private final double[] lower;
+	private final double[] diagonal;
+	private final double[] upper;
+	/** modified upper diagonal, re-used by each call to solve (not thread-safe) */
+	private final double[] scratch;
+
+	/**
+	 * Construct a tridiagonal matrix from its diagonals. The arrays are used
+	 * directly, not copied.
+	 *
+	 * @param lower
+	 *            the diagonal below the main diagonal, <code>lower[0]</code> is
+	 *            ignored
+	 * @param diagonal
+	 *            the main diagonal
+	 * @param upper
+	 *            the diagonal above the main diagonal,
+	 *            <code>upper[size - 1]</code> is ignored
+	 */
+	public TridiagonalMatrix(final double[] lower, final double[] diagonal, final double[] upper) {
+		if (lower.length != diagonal.length || upper.length != diagonal.length) {
+			throw new IllegalArgumentException("malformed matrix, wrong dimensions!");
+		}
+
+		this.lower = lower;
+		this.diagonal = diagonal;
+		this.upper = upper;
+		scratch = new double[diagonal.length];
+	}
+
+	/**
+	 * Construct an empty tridiagonal matrix with the given dimension.
+	 *
+	 * @param size
+	 */
+	public TridiagonalMatrix(final int size) {
+		this(new double[size], new double[size], new double[size]);
+	}
+
+	/**
+	 * Get a cell value.
+	 *
+	 * @param row
+	 * @param column
+	 * @return the cell value
+	 */
+	public double get(final int row, final int column) {
+		switch (column - row) {
+		case -1:
+			return lower[row];
+
+		case 0:
+			return diagonal[row];
+
+		case 1:
+			return upper[row];
+
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * @return the main diagonal
+	 */
+	public double[] getDiagonal() {
+		return diagonal;
+	}
+
+	/**
+	 * @return the diagonal below the main diagonal (<code>lower[row]</code> is
+	 *         the cell <code>(row, row - 1)</code>)
+	 */
+	public double[] getLower() {
+		return lower;
+	}
+
+	/**
+	 * Get the dimension of this matrix.
+	 *
+	 * @return the number of rows (and columns)
+	 */
+	public int getSize() {
+		return diagonal.length;
+	}
+
+	/**
+	 * @return the diagonal above the main diagonal (<code>upper[row]</code> is
+	 *         the cell <code>(row, row + 1)</code>)
+	 */
+	public double[] getUpper() {
+		return upper;
+	}
+
+	/**
+	 * Solve A x = rhs.
+	 *
+	 * @param rhs
+	 *            the right hand side
+	 * @return the solution x
+	 */
+	public double[] solve(final double[] rhs) {
+		final double[] x = new double[rhs.length];
+		solve(rhs, x);
+		return x;
+	}
+
+	/**
+	 * Solve A x = rhs using the Thomas algorithm without allocating any memory.
+	 * The matrix itself is not modified.
+	 *
+	 * @param rhs
+	 *            the right hand side
+	 * @param x
+	 *            receives the solution, may be the same array as rhs
+	 */
+	public void solve(final double[] rhs, final double[] x) {
+		final int size = diagonal.length;
+
+		if (rhs.length != size || x.length != size) {
+			throw new IllegalArgumentException("malformed vector, wrong dimensions!");
+		}
+
+		if (size == 0) {
+			return;
+		}
+
+		// forward sweep
+		double divisor = diagonal[0];
+		if (divisor == 0) {
+			throw new IllegalArgumentException("unsolvable matrix!");
+		}
+
+		scratch[0] = upper[0] / divisor;
+		x[0] = rhs[0] / divisor;
+
+		for (int row = 1; row < size; row++) {
+			divisor = diagonal[row] - lower[row] * scratch[row - 1];
+			if (divisor == 0) {
+				throw new IllegalArgumentException("unsolvable matrix!");
+			}
+
+			scratch[row] = upper[row] / divisor;
+			x[row] = (rhs[row] - lower[row] * x[row - 1]) / divisor;
+		}
+
+		// back substitution
+		for (int row = size - 2; row >= 0; row--) {
+			x[row] -= scratch[row] * x[row + 1];
+		}
+	}
+}
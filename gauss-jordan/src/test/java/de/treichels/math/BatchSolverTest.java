@@ -0,0 +1,91 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class BatchSolverTest {
+	private static double[] createSystems(final int size, final int count, final long seed) {
+		final Random random = new Random(seed);
+		final double[] data = new double[size * (size + 1) * count];
+
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextDouble() - 0.5;
+		}
+
+		return data;
+	}
+
+	private static void assertSolutions(final int size, final int count, final double[] systems, final double[] solved) {
+		final BatchSolver solver = new BatchSolver(size);
+
+		for (int system = 0; system < count; system++) {
+			final Matrix matrix = new Matrix(size, size + 1);
+			for (int row = 0; row < size; row++) {
+				for (int column = 0; column <= size; column++) {
+					matrix.set(row, column, systems[BatchSolver.index(size, count, system, row, column)]);
+				}
+			}
+
+			matrix.solve(Pivoting.PARTIAL);
+
+			for (int row = 0; row < size; row++) {
+				assertEquals(matrix.get(row, size), solver.getSolution(solved, count, system, row), 1e-6d);
+			}
+		}
+	}
+
+	@Test
+	public void testSolve() {
+		final int count = 1000;
+
+		for (int size = 1; size <= 8; size++) {
+			final double[] systems = createSystems(size, count, size);
+			final double[] solved = systems.clone();
+
+			assertEquals(0, new BatchSolver(size).solve(solved, count));
+			assertSolutions(size, count, systems, solved);
+		}
+	}
+
+	@Test
+	public void testSolveParallel() {
+		final int count = 5000;
+		final ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			for (final int size : new int[] { 3, 6 }) {
+				final double[] systems = createSystems(size, count, size);
+				final double[] solved = systems.clone();
+
+				assertEquals(0, new BatchSolver(size, 100).solve(solved, count, pool));
+				assertSolutions(size, count, systems, solved);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testUnsolvable() {
+		for (final int size : new int[] { 2, 3, 4, 5 }) {
+			final int count = 3;
+			final double[] data = createSystems(size, count, 42);
+
+			// system 1: first two rows are equal
+			for (int column = 0; column <= size; column++) {
+				data[BatchSolver.index(size, count, 1, 1, column)] = data[BatchSolver.index(size, count, 1, 0, column)];
+			}
+
+			final BatchSolver solver = new BatchSolver(size);
+			assertEquals(1, solver.solve(data, count));
+			assertTrue(Double.isNaN(solver.getSolution(data, count, 1, 0)));
+			assertTrue(!Double.isNaN(solver.getSolution(data, count, 0, 0)));
+			assertTrue(!Double.isNaN(solver.getSolution(data, count, 2, 0)));
+		}
+	}
+}
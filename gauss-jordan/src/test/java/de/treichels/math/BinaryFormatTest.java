@@ -0,0 +1,111 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BinaryFormatTest {
+	private static Matrix createMatrix(final int rows, final int columns, final StorageType type) {
+		final Random random = new Random(42);
+		final Matrix matrix = new Matrix(rows, columns, type);
+
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				matrix.set(row, column, random.nextDouble() - 0.5);
+			}
+		}
+
+		return matrix;
+	}
+
+	@Test(expected = IOException.class)
+	public void testMagic() throws IOException {
+		BinaryFormat.readMatrix(Channels.newChannel(new ByteArrayInputStream(new byte[BinaryFormat.HEADER_SIZE])));
+	}
+
+	@Test
+	public void testMapMatrix() throws IOException {
+		final Matrix expected = createMatrix(3, 4, StorageType.FLAT);
+		final Path file = Files.createTempFile("matrix", ".bin");
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			BinaryFormat.write(new PolynomalFunction(new double[] { 1, 2, 3 }), channel);
+			final long position = channel.position();
+			BinaryFormat.write(expected, channel);
+
+			final Matrix matrix = BinaryFormat.mapMatrix(channel, position);
+			assertEquals(StorageType.MAPPED, matrix.getStorageType());
+			assertEquals(expected, matrix);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testMatrix() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final WritableByteChannel channel = Channels.newChannel(out);
+		final StorageType[] types = { StorageType.ARRAY, StorageType.FLAT, StorageType.DIRECT };
+
+		for (final StorageType type : types) {
+			BinaryFormat.write(createMatrix(3, 4, type), channel);
+		}
+		// larger than the transfer buffer
+		BinaryFormat.write(createMatrix(100, 101, StorageType.FLAT), channel);
+
+		assertEquals(3 * (BinaryFormat.HEADER_SIZE + 12 * Double.BYTES) + BinaryFormat.HEADER_SIZE + 10100 * Double.BYTES, out.size());
+
+		final ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(out.toByteArray()));
+		for (final StorageType type : types) {
+			final Matrix matrix = BinaryFormat.readMatrix(in);
+			assertEquals(type, matrix.getStorageType());
+			assertEquals(createMatrix(3, 4, StorageType.ARRAY), matrix);
+		}
+		assertEquals(createMatrix(100, 101, StorageType.ARRAY), BinaryFormat.readMatrix(in, StorageType.DIRECT));
+		assertNull(BinaryFormat.readMatrix(in));
+	}
+
+	@Test
+	public void testPolynomalFunction() throws IOException {
+		final PolynomalFunction function = new PolynomalFunction(new double[] { 0.8, 0, -3.4, 4 });
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryFormat.write(function, Channels.newChannel(out));
+
+		final ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(function, BinaryFormat.readFunction(in));
+		assertNull(BinaryFormat.readFunction(in));
+	}
+
+	@Test
+	public void testRowReader() throws IOException {
+		final Matrix expected = createMatrix(5, 7, StorageType.ARRAY);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryFormat.write(expected, Channels.newChannel(out));
+
+		final BinaryFormat.RowReader reader = new BinaryFormat.RowReader(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+		assertEquals(5, reader.getRows());
+		assertEquals(7, reader.getColumns());
+		assertEquals(StorageType.ARRAY, reader.getStorageType());
+
+		final double[] row = new double[7];
+		for (int i = 0; i < 5; i++) {
+			assertEquals(true, reader.read(row));
+			assertArrayEquals(expected.getData()[i], row, 1e-99d);
+		}
+		assertEquals(false, reader.read(row));
+	}
+}
@@ -0,0 +1,197 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CubicSplineTest {
+	private static final double[] XS = { -100, -20, 0, 35, 100 };
+	private static final double[] YS = { -100, 10, 0, 40, 100 };
+
+	@Test
+	public void testControlPoints() {
+		final CubicSpline spline = new CubicSpline(XS, YS);
+
+		assertEquals(5, spline.getPointCount());
+		assertEquals(4, spline.getFunctions().length);
+
+		for (int i = 0; i < XS.length; i++) {
+			assertEquals(YS[i], spline.evaluate(XS[i]), 1e-9d);
+		}
+	}
+
+	@Test
+	public void testContinuity() {
+		final CubicSpline spline = new CubicSpline(XS, YS);
+		final PolynomalFunction[] functions = spline.getFunctions();
+
+		for (int i = 1; i < functions.length; i++) {
+			final double[] left = functions[i - 1].getCoefficients();
+			final double[] right = functions[i].getCoefficients();
+			final double h = XS[i] - XS[i - 1];
+
+			// first and second derivative match at the inner control points
+			assertEquals(3 * left[0] * h * h + 2 * left[1] * h + left[2], right[2], 1e-9d);
+			assertEquals(6 * left[0] * h + 2 * left[1], 2 * right[1], 1e-9d);
+		}
+
+		// natural spline
+		assertEquals(0, functions[0].getCoefficients()[1], 1e-99d);
+		final double[] last = functions[3].getCoefficients();
+		assertEquals(0, 6 * last[0] * (XS[4] - XS[3]) + 2 * last[1], 1e-9d);
+	}
+
+	@Test
+	public void testEvaluateArray() {
+		final CubicSpline spline = new CubicSpline(XS, YS);
+		final double[] in = { 50, -150, -100, -60, 0, 10, 35, 99, 100, 120 };
+		final double[] out = new double[in.length];
+
+		spline.evaluate(in, out);
+
+		for (int i = 0; i < in.length; i++) {
+			assertEquals(spline.evaluate(in[i]), out[i], 1e-99d);
+		}
+	}
+
+	@Test
+	public void testLinear() {
+		final CubicSpline spline = new CubicSpline(new double[] { 0, 10 }, new double[] { 0, 5 });
+
+		assertEquals(2.5, spline.evaluate(5), 1e-12d);
+		assertArrayEquals(new double[] { 0, 0, 0.5, 0 }, spline.getFunctions()[0].getCoefficients(), 1e-12d);
+	}
+
+	@Test
+	public void testSegment() {
+		final CubicSpline spline = new CubicSpline(XS, YS);
+
+		assertEquals(0, spline.getSegment(-1000));
+		assertEquals(0, spline.getSegment(-100));
+		assertEquals(1, spline.getSegment(-20));
+		assertEquals(1, spline.getSegment(-10));
+		assertEquals(3, spline.getSegment(100));
+		assertEquals(3, spline.getSegment(1000));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnordered() {
+		new CubicSpline(new double[] { 0, 10, 5 }, new double[] { 0, 1, 2 });
+	}
+
+	@Test
+	public void testSetPoint() {
+		final int n = 200;
+		final Random random = new Random(42);
+		final double[] xs = new double[n];
+		final double[] ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = 10 * i;
+			ys[i] = random.nextDouble() * 100;
+		}
+
+		final CubicSpline spline = new CubicSpline(xs, ys);
+		spline.setTolerance(1e-6);
+
+		for (int step = 0; step < 500; step++) {
+			final int index = random.nextInt(n);
+			final PolynomalFunction[] before = copy(spline.getFunctions());
+
+			ys[index] = random.nextDouble() * 100;
+			if (step % 5 == 0 && index > 0 && index < n - 1) {
+				xs[index] += random.nextInt(9) - 4;
+			}
+			spline.setPoint(index, xs[index], ys[index]);
+
+			final CubicSpline expected = new CubicSpline(xs, ys);
+			final int from = spline.getChangedFrom();
+			final int to = spline.getChangedTo();
+			assertTrue(from <= Math.max(0, index - 1) && to >= Math.min(n - 2, index));
+
+			for (int segment = 0; segment < n - 1; segment++) {
+				final double[] actual = spline.getFunctions()[segment].getCoefficients();
+				assertArrayEquals(expected.getFunctions()[segment].getCoefficients(), actual, 1e-9d);
+
+				if (segment < from || segment > to) {
+					// unchanged within the tolerance
+					assertArrayEquals(before[segment].getCoefficients(), actual, 1e-6d);
+				}
+			}
+		}
+
+		// the effect of a single point decays quickly
+		spline.setPoint(100, xs[100], ys[100] + 1);
+		assertTrue(spline.getChangedTo() - spline.getChangedFrom() < 40);
+	}
+
+	@Test
+	public void testSetPointSmallMoves() {
+		final int n = 50;
+		final double[] xs = new double[n];
+		final double[] ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = 10 * i;
+			ys[i] = i % 7;
+		}
+
+		final double tolerance = 0.01;
+		final CubicSpline spline = new CubicSpline(xs, ys);
+		spline.setTolerance(tolerance);
+
+		// the curve of each segment when it was last reported
+		final double[][] shown = new double[n - 1][];
+		for (int segment = 0; segment < n - 1; segment++) {
+			shown[segment] = sample(spline, segment);
+		}
+
+		final Random random = new Random(42);
+		int reported = 0;
+		for (int step = 0; step < 2000; step++) {
+			// moves below the tolerance, which add up
+			final int index = 20 + random.nextInt(5);
+			ys[index] += 0.001;
+			spline.setPoint(index, xs[index], ys[index]);
+
+			for (int segment = 0; segment < n - 1; segment++) {
+				final double[] values = sample(spline, segment);
+
+				if (segment >= spline.getChangedFrom() && segment <= spline.getChangedTo()) {
+					shown[segment] = values;
+					reported++;
+				} else {
+					for (int i = 0; i < values.length; i++) {
+						assertEquals(shown[segment][i], values[i], tolerance);
+					}
+				}
+			}
+		}
+
+		assertTrue(reported > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetPointOrder() {
+		new CubicSpline(XS, YS).setPoint(2, -20, 0);
+	}
+
+	private static PolynomalFunction[] copy(final PolynomalFunction[] functions) {
+		final PolynomalFunction[] result = new PolynomalFunction[functions.length];
+		for (int i = 0; i < functions.length; i++) {
+			result[i] = new PolynomalFunction(functions[i]);
+		}
+		return result;
+	}
+
+	private static double[] sample(final CubicSpline spline, final int segment) {
+		final double h = spline.getX(segment + 1) - spline.getX(segment);
+		final double[] values = new double[11];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = spline.getFunctions()[segment].evaluate(h * i / 10);
+		}
+		return values;
+	}
+}
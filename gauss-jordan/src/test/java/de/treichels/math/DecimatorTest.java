@@ -0,0 +1,139 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DecimatorTest {
+	private static double[] range(final int n) {
+		final double[] result = new double[n];
+		for (int i = 0; i < n; i++) {
+			result[i] = i;
+		}
+		return result;
+	}
+
+	@Test
+	public void testFewPoints() {
+		final double[] xs = range(10);
+		final Decimator decimator = new Decimator(xs, range(10));
+
+		// all points in the range plus one outside of each end
+		assertArrayEquals(new int[] { 2, 3, 4, 5, 6, 7 }, decimator.decimate(2.5, 6.5, 10));
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, decimator.decimate(-1, 100, 5));
+	}
+
+	@Test
+	public void testLevels() {
+		assertEquals(0, new Decimator(range(2), range(2)).getLevelCount());
+		assertEquals(1, new Decimator(range(3), range(3)).getLevelCount());
+		assertEquals(9, new Decimator(range(1000), range(1000)).getLevelCount());
+		assertEquals(10, new Decimator(range(1025), range(1025)).getLevelCount());
+	}
+
+	@Test
+	public void testMinMaxPerColumn() {
+		final int n = 100003;
+		final Random random = new Random(0);
+		final double[] xs = new double[n];
+		final double[] ys = new double[n];
+		for (int i = 1; i < n; i++) {
+			xs[i] = xs[i - 1] + random.nextDouble();
+			ys[i] = ys[i - 1] + random.nextGaussian();
+		}
+
+		final Decimator decimator = new Decimator(xs, ys);
+
+		for (int test = 0; test < 20; test++) {
+			final double from = random.nextDouble() * xs[n - 1];
+			final double to = from + random.nextDouble() * (xs[n - 1] - from) + 1;
+			final int columns = 1 + random.nextInt(1000);
+			final int[] result = decimator.decimate(from, to, columns);
+
+			assertTrue(result.length <= 2 * columns + 2);
+			for (int i = 1; i < result.length; i++) {
+				assertTrue(result[i] > result[i - 1]);
+			}
+
+			// brute force minimum and maximum of each column
+			final double[] min = new double[columns];
+			final double[] max = new double[columns];
+			final boolean[] used = new boolean[columns];
+			int first = -1;
+			int last = -1;
+			for (int i = 0; i < n; i++) {
+				if (xs[i] >= from && xs[i] <= to) {
+					final int column = Math.max(0, Math.min(columns - 1, (int) ((xs[i] - from) / (to - from) * columns)));
+					if (!used[column] || ys[i] < min[column]) {
+						min[column] = ys[i];
+					}
+					if (!used[column] || ys[i] > max[column]) {
+						max[column] = ys[i];
+					}
+					used[column] = true;
+					if (first < 0) {
+						first = i;
+					}
+					last = i;
+				}
+			}
+
+			if (first > 0) {
+				assertEquals(first - 1, result[0]);
+			}
+			if (last < n - 1) {
+				assertEquals(last + 1, result[result.length - 1]);
+			}
+
+			final double[] foundMin = new double[columns];
+			final double[] foundMax = new double[columns];
+			final boolean[] found = new boolean[columns];
+			for (final int i : result) {
+				if (xs[i] >= from && xs[i] <= to) {
+					final int column = Math.max(0, Math.min(columns - 1, (int) ((xs[i] - from) / (to - from) * columns)));
+					if (!found[column] || ys[i] < foundMin[column]) {
+						foundMin[column] = ys[i];
+					}
+					if (!found[column] || ys[i] > foundMax[column]) {
+						foundMax[column] = ys[i];
+					}
+					found[column] = true;
+				}
+			}
+
+			assertArrayEquals(used, found);
+			assertArrayEquals(min, foundMin, 0d);
+			assertArrayEquals(max, foundMax, 0d);
+		}
+	}
+
+	@Test
+	public void testUpdate() {
+		final int n = 5000;
+		final Random random = new Random(0);
+		final double[] xs = range(n);
+		final double[] ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			ys[i] = random.nextGaussian();
+		}
+
+		final Decimator decimator = new Decimator(xs, ys);
+
+		for (int test = 0; test < 100; test++) {
+			final int index = random.nextInt(n);
+			ys[index] = random.nextGaussian() * 3;
+			decimator.update(index);
+
+			assertArrayEquals(new Decimator(xs, ys).decimate(0, n, 97), decimator.decimate(0, n, 97));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongDimensions() {
+		new Decimator(range(3), range(4));
+	}
+}
@@ -0,0 +1,119 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.treichels.math.IterativeSolver.Method;
+import de.treichels.math.IterativeSolver.Result;
+
+public class IterativeSolverTest {
+	private static final SparseMatrix MATRIX = SparseLUFactorizationTest.createLaplacian(10, 42);
+
+	private static double[] rhs() {
+		final double[] b = new double[MATRIX.getRows()];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = i % 5 - 2;
+		}
+
+		return b;
+	}
+
+	@Test
+	public void testAbort() {
+		final IterativeSolver solver = new IterativeSolver(Method.JACOBI);
+		solver.setListener((iteration, residual) -> iteration < 3);
+
+		final Result result = solver.solve(MATRIX, rhs(), new double[MATRIX.getRows()]);
+
+		assertFalse(result.isConverged());
+		assertEquals(3, result.getIterations());
+	}
+
+	@Test
+	public void testDense() {
+		final Matrix dense = MATRIX.toMatrix();
+		final double[] b = rhs();
+		final double[] expected = new LUFactorization(dense).solve(b);
+
+		for (final Method method : Method.values()) {
+			final IterativeSolver solver = new IterativeSolver(method);
+			final double[] x = new double[b.length];
+
+			assertTrue(method.name(), solver.solve(dense, b, x).isConverged());
+			assertArrayEquals(method.name(), expected, x, 1e-8d);
+		}
+	}
+
+	@Test
+	public void testResidual() {
+		final double[] b = rhs();
+		final double[] ax = new double[b.length];
+
+		for (final Method method : Method.values()) {
+			for (final int maxIterations : new int[] { 0, 1, 5 }) {
+				final IterativeSolver solver = new IterativeSolver(method);
+				solver.setMaxIterations(maxIterations);
+				final double[] x = new double[b.length];
+				final Result result = solver.solve(MATRIX, b, x);
+
+				// the reported residual belongs to the returned x
+				MATRIX.multiply(x, ax);
+				double sum = 0;
+				double norm = 0;
+				for (int i = 0; i < b.length; i++) {
+					sum += (b[i] - ax[i]) * (b[i] - ax[i]);
+					norm += b[i] * b[i];
+				}
+
+				assertEquals(method.name(), Math.sqrt(sum / norm), result.getResidual(), 1e-12d);
+				assertFalse(method.name(), result.isConverged());
+			}
+		}
+	}
+
+	@Test
+	public void testSparse() {
+		final double[] b = rhs();
+		final double[] expected = new SparseLUFactorization(MATRIX).solve(b);
+		final int[] iterations = new int[Method.values().length];
+
+		for (final Method method : Method.values()) {
+			final IterativeSolver solver = new IterativeSolver(method);
+			final double[] x = new double[b.length];
+			final Result result = solver.solve(MATRIX, b, x);
+
+			assertTrue(method.name(), result.isConverged());
+			assertTrue(result.getResidual() <= solver.getTolerance());
+			assertArrayEquals(method.name(), expected, x, 1e-8d);
+			iterations[method.ordinal()] = result.getIterations();
+		}
+
+		// the faster methods need less iterations
+		assertTrue(iterations[Method.GAUSS_SEIDEL.ordinal()] < iterations[Method.JACOBI.ordinal()]);
+		assertTrue(iterations[Method.SOR.ordinal()] < iterations[Method.GAUSS_SEIDEL.ordinal()]);
+		assertTrue(iterations[Method.CONJUGATE_GRADIENT.ordinal()] < iterations[Method.SOR.ordinal()]);
+	}
+
+	@Test
+	public void testWarmStart() {
+		final double[] b = rhs();
+		final double[] x = new SparseLUFactorization(MATRIX).solve(b);
+
+		for (final Method method : Method.values()) {
+			final Result result = new IterativeSolver(method).solve(MATRIX, b, x.clone());
+			assertTrue(method.name(), result.getIterations() <= 1);
+		}
+
+		// a slightly different system starts close to the solution
+		final double[] cold = new double[b.length];
+		final double[] warm = x.clone();
+		b[0] += 0.01;
+
+		final IterativeSolver solver = new IterativeSolver(Method.CONJUGATE_GRADIENT);
+		assertTrue(solver.solve(MATRIX, b, warm).getIterations() < solver.solve(MATRIX, b, cold).getIterations());
+	}
+}
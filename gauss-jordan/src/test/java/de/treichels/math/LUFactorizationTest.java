@@ -0,0 +1,125 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LUFactorizationTest {
+	private static final double[][] COEFFICIENTS = { { 6, -4, -1, 5 }, { 6, -6, -7, -3 }, { -3, 9, 0, -7 }, { 0, 7, 7, 0 } };
+
+	private static double norm1(final Matrix matrix) {
+		double result = 0;
+		for (int column = 0; column < matrix.getColums(); column++) {
+			double sum = 0;
+			for (int row = 0; row < matrix.getRows(); row++) {
+				sum += Math.abs(matrix.get(row, column));
+			}
+			result = Math.max(result, sum);
+		}
+		return result;
+	}
+
+	@Test
+	public void testEstimateCondition() {
+		final Random random = new Random(42);
+
+		for (int size = 1; size <= 40; size += 3) {
+			final Matrix matrix = new Matrix(size, size);
+			for (int row = 0; row < size; row++) {
+				for (int column = 0; column < size; column++) {
+					// a Hilbert matrix every other time
+					matrix.set(row, column, size % 2 == 0 && size < 12 ? 1d / (row + column + 1) : random.nextDouble() - 0.5);
+				}
+			}
+
+			final double exact = norm1(matrix) * norm1(matrix.inverse());
+			final double estimate = new LUFactorization(matrix).estimateCondition();
+
+			// the inverse of the Hilbert matrices is not exact either
+			assertTrue(estimate <= exact * 1.01);
+			assertTrue(estimate >= exact / 3);
+		}
+	}
+
+	@Test
+	public void testSolveArray() {
+		final LUFactorization lu = new LUFactorization(new Matrix(COEFFICIENTS));
+
+		assertEquals(4, lu.getSize());
+		assertArrayEquals(new double[] { -26d / 49d, -81d / 49d, 18d / 49d, -30d / 49d }, lu.solve(new double[] { 0, 6, -9, -9 }), 1e-12d);
+
+		// reuse the factorization for another right hand side
+		final double[] x = new double[4];
+		lu.solve(new double[] { 6, 6, -3, 0 }, x);
+		assertArrayEquals(new double[] { 1, 0, 0, 0 }, x, 1e-12d);
+	}
+
+	@Test
+	public void testSolveTranspose() {
+		final Matrix transposed = new Matrix(4, 4);
+		for (int row = 0; row < 4; row++) {
+			for (int column = 0; column < 4; column++) {
+				transposed.set(row, column, COEFFICIENTS[column][row]);
+			}
+		}
+
+		final double[] b = { 1, 2, 3, 4 };
+		final double[] x = new double[4];
+		new LUFactorization(new Matrix(COEFFICIENTS)).solveTranspose(b, x);
+
+		assertArrayEquals(new LUFactorization(transposed).solve(b), x, 1e-12d);
+	}
+
+	@Test
+	public void testSolveMatrix() {
+		final LUFactorization lu = new LUFactorization(new Matrix(COEFFICIENTS));
+		final Matrix b = new Matrix(new double[][] { { 0, 6 }, { 6, 6 }, { -9, -3 }, { -9, 0 } });
+
+		final Matrix x = lu.solve(b);
+
+		assertEquals(4, x.getRows());
+		assertEquals(2, x.getColums());
+		assertArrayEquals(new double[] { -26d / 49d, -81d / 49d, 18d / 49d, -30d / 49d }, x.getColumn(0), 1e-12d);
+		assertArrayEquals(new double[] { 1, 0, 0, 0 }, x.getColumn(1), 1e-12d);
+	}
+
+	@Test
+	public void testBlocked() {
+		final int size = 70;
+		final Random random = new Random(42);
+		final Matrix coefficients = new Matrix(size, size);
+		final Matrix augmented = new Matrix(size, size + 1);
+		final double[] b = new double[size];
+
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				coefficients.set(row, column, random.nextDouble() - 0.5);
+				augmented.set(row, column, coefficients.get(row, column));
+			}
+
+			b[row] = random.nextDouble();
+			augmented.set(row, size, b[row]);
+		}
+
+		augmented.solve(Pivoting.PARTIAL);
+		final double[] expected = augmented.getColumn(size);
+
+		for (final int blockSize : new int[] { 1, 3, 16, 64, size, 1000 }) {
+			assertArrayEquals(expected, new LUFactorization(coefficients, blockSize).solve(b), 1e-9d);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSingular() {
+		new LUFactorization(new Matrix(new double[][] { { 1, 2 }, { 2, 4 } }));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotSquare() {
+		new LUFactorization(new Matrix(3, 4));
+	}
+}
@@ -0,0 +1,86 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MatrixFormatTest {
+	@Test
+	public void testFormatDouble() {
+		final MatrixFormat format = new MatrixFormat();
+		final Random random = new Random(42);
+
+		for (int i = 0; i < 10000; i++) {
+			final double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(14) - 4);
+			assertEquals(String.format(Locale.US, "%6.2f", value), format.format(value, new StringBuilder()).toString());
+		}
+
+		assertEquals("  -0.00", format.format(-0.001, new StringBuilder(" ")).toString());
+		assertEquals("   NaN", format.format(Double.NaN, new StringBuilder()).toString());
+
+		format.setPrecision(0);
+		format.setWidth(0);
+		format.setGrouping(true);
+		assertEquals("1,234,568", format.format(1234567.8, new StringBuilder()).toString());
+		assertEquals("-1,000", format.format(-1000, new StringBuilder()).toString());
+	}
+
+	@Test
+	public void testFormatHalfUp() {
+		final MatrixFormat format = new MatrixFormat();
+
+		// the decimal value is rounded, not the slightly smaller binary value
+		for (final double value : new double[] { 1.005, 2.675, 0.125, -1.005, 1234567890123.455 }) {
+			assertEquals(String.format(Locale.US, "%6.2f", value), format.format(value, new StringBuilder()).toString());
+		}
+
+		assertEquals("  1.01", format.format(1.005, new StringBuilder()).toString());
+	}
+
+	@Test
+	public void testFormatMatrix() throws IOException {
+		final MatrixFormat format = new MatrixFormat();
+		format.setPrecision(1);
+		format.setWidth(4);
+		final Matrix matrix = new Matrix(new double[][] { { 1, 2.25 }, { -3, 40 } });
+
+		final StringWriter writer = new StringWriter();
+		format.format(matrix, writer);
+		assertEquals("| 1.0,  2.3|\n|-3.0, 40.0|\n", writer.toString());
+	}
+
+	@Test
+	public void testFormatPolynomalFunction() {
+		final MatrixFormat format = new MatrixFormat();
+		format.setPrecision(3);
+
+		assertEquals("0.8 x^3 - 3.4 x + 4", format.format(new PolynomalFunction(new double[] { 0.8, 0, -3.4, 4 }), new StringBuilder()).toString());
+		assertEquals("x^2 - x + 1", format.format(new PolynomalFunction(new double[] { 1, -1, 1 }), new StringBuilder()).toString());
+		assertEquals("-1234.568 x", format.format(new PolynomalFunction(new double[] { -1234.5678, 0 }), new StringBuilder()).toString());
+
+		format.setGrouping(true);
+		assertEquals("-1,234.568 x", format.format(new PolynomalFunction(new double[] { -1234.5678, 0 }), new StringBuilder()).toString());
+	}
+
+	@Test
+	public void testSummary() {
+		final Matrix matrix = new Matrix(5, 6);
+		for (int row = 0; row < 5; row++) {
+			for (int column = 0; column < 6; column++) {
+				matrix.set(row, column, 10 * row + column);
+			}
+		}
+
+		final MatrixFormat format = new MatrixFormat();
+		format.setPrecision(0);
+		format.setWidth(3);
+		format.setSummary(2, 3);
+
+		assertEquals("|  0,   1, ...,   5|\n...\n| 40,  41, ...,  45|\n", format.format(matrix, new StringBuilder()).toString());
+	}
+}
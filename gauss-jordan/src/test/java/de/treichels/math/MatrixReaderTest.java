@@ -0,0 +1,101 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MatrixReaderTest {
+	private static double parse(final String s) {
+		return MatrixReader.parseDouble(s.toCharArray(), s.length());
+	}
+
+	@Test(expected = IOException.class)
+	public void testMalformedNumber() throws IOException {
+		new MatrixReader(new StringReader("1, 2, x\n")).readMatrix();
+	}
+
+	@Test(expected = IOException.class)
+	public void testMalformedRow() throws IOException {
+		new MatrixReader(new StringReader("1, 2, 3\n4, 5\n")).readMatrix();
+	}
+
+	@Test
+	public void testParseDouble() {
+		final String[] values = { "0", "-0", "1", "+1", "-42", "3.25", ".5", "5.", "0.1", "-1.5e3", "1E-5", "123456789012345", "0.000001234",
+				"1e22", "1e23", "1e-300", "2.2250738585072014E-308", "3.141592653589793238462643", "12345678901234567890123", "9007199254740993",
+				"NaN", "-Infinity" };
+
+		for (final String value : values) {
+			assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)), Double.doubleToLongBits(parse(value)));
+		}
+
+		final Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			final double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+			assertEquals(value, parse(Double.toString(value)), 0);
+			final String rounded = String.format(Locale.US, "%.6f", value);
+			assertEquals(rounded, Double.parseDouble(rounded), parse(rounded), 0);
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testParseDoubleMalformed() {
+		parse("1e");
+	}
+
+	@Test
+	public void testPath() throws IOException {
+		final Path file = Files.createTempFile("matrix", ".csv");
+		try {
+			Files.write(file, "1;2;3\r\n4;5;6".getBytes(StandardCharsets.UTF_8));
+
+			try (MatrixReader reader = new MatrixReader(file)) {
+				assertEquals(new Matrix(new double[][] { { 1, 2, 3 }, { 4, 5, 6 } }), reader.readMatrix());
+				assertNull(reader.readMatrix());
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testReadMatrix() throws IOException {
+		final MatrixReader reader = new MatrixReader(new StringReader("\n1, 2, 3\r\n4,\t5 ,6\r\n\r\n  \n2 0 4\n0 1 1\n\n"));
+
+		final Matrix first = reader.readMatrix();
+		assertEquals(StorageType.FLAT, first.getStorageType());
+		assertEquals(new Matrix(new double[][] { { 1, 2, 3 }, { 4, 5, 6 } }), first);
+		assertEquals(new Matrix(new double[][] { { 2, 0, 4 }, { 0, 1, 1 } }), reader.readMatrix());
+		assertNull(reader.readMatrix());
+	}
+
+	@Test
+	public void testSolveAll() throws IOException {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 1; i <= 100; i++) {
+			// 2x = 2i, x + y = 3i
+			text.append("2, 0, ").append(2 * i).append('\n');
+			text.append("1, 1, ").append(3 * i).append("\n\n");
+		}
+
+		final List<double[]> solutions = new ArrayList<>();
+		final MatrixReader reader = new MatrixReader(new StringReader(text.toString()));
+		assertEquals(100, reader.solveAll(Pivoting.PARTIAL, matrix -> solutions.add(matrix.getColumn(2))));
+
+		for (int i = 1; i <= 100; i++) {
+			assertEquals(Arrays.toString(new double[] { i, 2 * i }), Arrays.toString(solutions.get(i - 1)));
+		}
+	}
+}
@@ -1,7 +1,19 @@
 package de.treichels.math;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.ArrayRealVector;
@@ -75,6 +87,71 @@ public class MatrixTest {
 		}
 	}
 
+	@Test
+	public void testMatrixDirect() {
+		final double[][] data = { { 6, -4, -1, 5, 0 }, { 6, -6, -7, -3, 6 }, { -3, 9, 0, -7, -9 }, { 0, 7, 7, 0, -9 } };
+		final Matrix expected = new Matrix(data);
+		final Matrix direct = new Matrix(expected, StorageType.DIRECT);
+
+		assertEquals(StorageType.DIRECT, direct.getStorageType());
+		assertEquals(expected, direct);
+
+		expected.solve(Pivoting.PARTIAL);
+		direct.solve(Pivoting.PARTIAL);
+		assertEquals(expected, direct);
+	}
+
+	@Test
+	public void testMatrixFlat() {
+		final double[] data = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 };
+		final Matrix matrix = new Matrix(data, 3, 5);
+
+		assertEquals(StorageType.FLAT, matrix.getStorageType());
+		assertEquals(3, matrix.getRows());
+		assertEquals(5, matrix.getColums());
+		assertEquals(new Matrix(new double[][] { { 1, 2, 3, 4, 5 }, { 6, 7, 8, 9, 10 }, { 11, 12, 13, 14, 15 } }), matrix);
+		assertArrayEquals(new double[] { 6, 7, 8, 9, 10 }, matrix.getRow(1), 1e-99d);
+		assertArrayEquals(new double[] { 2, 7, 12 }, matrix.getColumn(1), 1e-99d);
+
+		// swapping rows must not move any data
+		matrix.swap(0, 2);
+		assertArrayEquals(new double[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 }, data, 1e-99d);
+		assertArrayEquals(new double[] { 11, 12, 13, 14, 15 }, matrix.getRow(0), 1e-99d);
+		assertArrayEquals(new double[] { 1, 2, 3, 4, 5 }, matrix.getRow(2), 1e-99d);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testMatrixFlatGetData() {
+		new Matrix(3, 5, StorageType.FLAT).getData();
+	}
+
+	@Test
+	public void testMatrixFlatSolve() {
+		final double[][] data = { { 0, -4, -1, 5, 0 }, { 6, -6, -7, -3, 6 }, { -3, 9, 0, -7, -9 }, { 0, 7, 7, 0, -9 } };
+		final Matrix expected = new Matrix(data);
+		final Matrix matrix = new Matrix(expected, StorageType.FLAT);
+
+		assertEquals(expected, matrix);
+		assertEquals(expected.hashCode(), matrix.hashCode());
+
+		expected.solve();
+		matrix.solve();
+
+		for (int row = 0; row < 4; row++) {
+			assertArrayEquals(expected.getRow(row), matrix.getRow(row), 1e-12d);
+		}
+	}
+
+	@Test
+	public void testMatrixInverse() {
+		final Matrix matrix = new Matrix(new double[][] { { 4, 7 }, { 2, 6 } });
+		final Matrix inverse = matrix.inverse();
+
+		assertArrayEquals(new double[] { 0.6, -0.7 }, inverse.getRow(0), 1e-12d);
+		assertArrayEquals(new double[] { -0.2, 0.4 }, inverse.getRow(1), 1e-12d);
+		assertArrayEquals(new double[] { 4, 7 }, matrix.getRow(0), 1e-99d);
+	}
+
 	@Test
 	public void testMatrixIntInt() {
 		final Matrix matrix = new Matrix(3, 5);
@@ -89,6 +166,31 @@ public class MatrixTest {
 		}
 	}
 
+	@Test
+	public void testMatrixMap() throws IOException {
+		final Path file = Files.createTempFile("matrix", ".bin");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(16 + 6 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.position(16);
+			buffer.putDouble(0).putDouble(1).putDouble(2);
+			buffer.putDouble(1).putDouble(0).putDouble(3);
+			buffer.flip();
+			channel.write(buffer);
+
+			final Matrix matrix = Matrix.map(channel, 16, 2, 3);
+			assertEquals(StorageType.MAPPED, matrix.getStorageType());
+			assertEquals(1, matrix.get(1, 0), 1e-99d);
+
+			matrix.solveOutOfCore(1);
+			matrix.force();
+		}
+
+		final ByteBuffer result = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+		Files.delete(file);
+		assertEquals(3, result.getDouble(16 + 2 * Double.BYTES), 1e-12d);
+		assertEquals(2, result.getDouble(16 + 5 * Double.BYTES), 1e-12d);
+	}
+
 	@Test
 	public void testMatrixMatrix() {
 		final double[][] data = { { 1, 2, 3, 4, 5 }, { 6, 7, 8, 9, 10 }, { 11, 12, 13, 14, 15 } };
@@ -150,16 +252,192 @@ public class MatrixTest {
 		assertEquals(-30d / 49d, matrix.get(3, 4), 1e-6d);
 	}
 
+	@Test
+	public void testMatrixSolveMultiple() {
+		final double[][] data = { { 6, -4, -1, 5, 0, 6 }, { 6, -6, -7, -3, 6, 6 }, { -3, 9, 0, -7, -9, -3 }, { 0, 7, 7, 0, -9, 0 } };
+		final Matrix matrix = new Matrix(data);
+
+		matrix.solve();
+
+		assertArrayEquals(new double[] { -26d / 49d, -81d / 49d, 18d / 49d, -30d / 49d }, matrix.getColumn(4), 1e-12d);
+		assertArrayEquals(new double[] { 1, 0, 0, 0 }, matrix.getColumn(5), 1e-12d);
+	}
+
+	@Test
+	public void testMatrixSolveMixedPrecision() {
+		final int size = 100;
+		final Matrix expected = randomMatrix(size, 2, 42);
+
+		final Matrix mixed = new Matrix(expected, StorageType.FLAT);
+		expected.solve(Pivoting.PARTIAL);
+
+		assertEquals(true, mixed.solveMixedPrecision());
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size + 2; column++) {
+				assertEquals(expected.get(row, column), mixed.get(row, column), 1e-12d);
+			}
+		}
+	}
+
+	@Test
+	public void testMatrixSolveMixedPrecisionFallback() {
+		// Hilbert matrix, far too ill-conditioned for single precision
+		final int size = 12;
+		final Matrix expected = new Matrix(size, size + 1);
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				expected.set(row, column, 1d / (row + column + 1));
+			}
+			expected.set(row, size, 1);
+		}
+
+		final Matrix mixed = new Matrix(expected);
+		expected.solve(Pivoting.PARTIAL);
+
+		assertEquals(false, mixed.solveMixedPrecision());
+		assertEquals(expected, mixed);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatrixSolveNotAugmented() {
+		new Matrix(new double[][] { { 1, 2 }, { 3, 4 } }).solve();
+	}
+
+	@Test
+	public void testMatrixSolveComplete() {
+		final double[][] data = { { 6, -4, -1, 5, 0 }, { 6, -6, -7, -3, 6 }, { -3, 9, 0, -7, -9 }, { 0, 7, 7, 0, -9 } };
+		final Matrix matrix = new Matrix(data);
+
+		matrix.solve(Pivoting.COMPLETE);
+
+		assertEquals(-26d / 49d, matrix.get(0, 4), 1e-12d);
+		assertEquals(-81d / 49d, matrix.get(1, 4), 1e-12d);
+		assertEquals(18d / 49d, matrix.get(2, 4), 1e-12d);
+		assertEquals(-30d / 49d, matrix.get(3, 4), 1e-12d);
+
+		for (int row = 0; row < 4; row++) {
+			for (int column = 0; column < 4; column++) {
+				assertEquals(row == column ? 1 : 0, matrix.get(row, column), 1e-12d);
+			}
+		}
+	}
+
+	@Test
+	public void testMatrixSolveOutOfCore() {
+		final int size = 50;
+		final Matrix expected = randomMatrix(size, 2, 42);
+
+		for (final StorageType type : StorageType.values()) {
+			final Matrix matrix = new Matrix(expected, type);
+			matrix.solveOutOfCore(7);
+
+			final Matrix reference = new Matrix(expected);
+			reference.solve(Pivoting.PARTIAL);
+			for (int row = 0; row < size; row++) {
+				for (int column = 0; column < size + 2; column++) {
+					assertEquals(reference.get(row, column), matrix.get(row, column), 1e-10d);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMatrixSolveOutOfCorePivot() {
+		// the whole first panel is zero in its first column
+		final double[][] data = { { 0, 1, 1, 2 }, { 0, 2, 1, 3 }, { 1, 1, 1, 3 } };
+		final Matrix matrix = new Matrix(data);
+
+		matrix.solveOutOfCore(2);
+
+		assertEquals(1, matrix.get(0, 3), 1e-12d);
+		assertEquals(1, matrix.get(1, 3), 1e-12d);
+		assertEquals(1, matrix.get(2, 3), 1e-12d);
+	}
+
+	@Test
+	public void testMatrixSolveRankRevealing() {
+		final double[][] data = { { 6, -4, -1, 5, 0 }, { 6, -6, -7, -3, 6 }, { -3, 9, 0, -7, -9 }, { 0, 7, 7, 0, -9 } };
+		final Matrix expected = new Matrix(data);
+		final Matrix matrix = new Matrix(expected);
+		expected.solve(Pivoting.COMPLETE);
+		assertEquals(4, matrix.solveRankRevealing());
+		assertEquals(expected, matrix);
+
+		// x + 2y = 3 twice: y is the pivot variable, x is free
+		final Matrix singular = new Matrix(new double[][] { { 1, 2, 3 }, { 2, 4, 6 } });
+		assertEquals(1, singular.solveRankRevealing());
+		assertEquals(0, singular.get(0, 2), 1e-12d);
+		assertEquals(1.5, singular.get(1, 2), 1e-12d);
+
+		// third row is the sum of the first two, up to noise below the tolerance
+		final Matrix nearlySingular = new Matrix(new double[][] { { 1, 0, 1, 2 }, { 0, 1, 1, 3 }, { 1, 1, 2 + 1e-14, 5 } });
+		assertEquals(3, new Matrix(nearlySingular).solveRankRevealing(0));
+		assertEquals(2, nearlySingular.solveRankRevealing(1e-10));
+		final double x = nearlySingular.get(0, 3);
+		final double y = nearlySingular.get(1, 3);
+		final double z = nearlySingular.get(2, 3);
+		assertEquals(2, x + z, 1e-12d);
+		assertEquals(3, y + z, 1e-12d);
+	}
+
+	@Test
+	public void testMatrixSolveParallel() {
+		final int size = 200;
+		final Matrix expected = randomMatrix(size, 1, 42);
+
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (final Pivoting pivoting : Pivoting.values()) {
+				final Matrix sequential = new Matrix(expected);
+				final Matrix parallel = new Matrix(expected, StorageType.FLAT);
+
+				sequential.solve(pivoting);
+				parallel.solveParallel(pivoting, pool, 10);
+
+				assertEquals(sequential, parallel);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testMatrixSolvePivoting() {
+		// without pivoting the tiny pivot wipes out x1
+		final double[][] data = { { 1e-20, 1, 1 }, { 1, 1, 2 } };
+
+		final Matrix none = new Matrix(new Matrix(data));
+		none.solve(Pivoting.NONE);
+		assertEquals(0, none.get(0, 2), 1e-6d);
+
+		for (final Pivoting pivoting : new Pivoting[] { Pivoting.PARTIAL, Pivoting.COMPLETE }) {
+			final Matrix matrix = new Matrix(new Matrix(data), StorageType.FLAT);
+			matrix.solve(pivoting);
+			assertEquals(1, matrix.get(0, 2), 1e-12d);
+			assertEquals(1, matrix.get(1, 2), 1e-12d);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatrixSolveSingular() {
+		new Matrix(new double[][] { { 1, 2, 3 }, { 2, 4, 6 } }).solve(Pivoting.PARTIAL);
+	}
+
 	@Test
 	public void testMatrixSwap() {
 		final double[][] data = { { 1, 2, 3, 4, 5 }, { 6, 7, 8, 9, 10 }, { 11, 12, 13, 14, 15 } };
 		final Matrix matrix = new Matrix(data);
+		final double[] row1 = data[1];
 
 		assertEquals(3, matrix.getRows());
 		assertEquals(5, matrix.getColums());
 
 		matrix.swap(1, 2);
 
+		// the row arrays stay in place, their contents are swapped
+		assertSame(row1, matrix.getData()[1]);
+		assertEquals(11, row1[0], 1e-99d);
+
 		assertEquals(3, matrix.getRows());
 		assertEquals(5, matrix.getColums());
 
@@ -177,4 +455,26 @@ public class MatrixTest {
 		assertEquals("|  1.00,   2.00,   3.00,   4.00,   5.00|\n|  6.00,   7.00,   8.00,   9.00,  10.00|\n| 11.00,  12.00,  13.00,  14.00,  15.00|\n",
 				matrix.toString());
 	}
+
+	/**
+	 * Create a size x (size + extra) matrix with random values in [-0.5, 0.5).
+	 *
+	 * @param size
+	 * @param extra
+	 *            number of additional columns
+	 * @param seed
+	 * @return the matrix
+	 */
+	private static Matrix randomMatrix(final int size, final int extra, final long seed) {
+		final Random random = new Random(seed);
+		final Matrix result = new Matrix(size, size + extra);
+
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size + extra; column++) {
+				result.set(row, column, random.nextDouble() - 0.5);
+			}
+		}
+
+		return result;
+	}
 }
@@ -30,6 +30,55 @@ public class PolynomalFunctionTest {
 		final PolynomalFunction p = new PolynomalFunction(coefficients);
 
 		assertEquals(3, p.evaluate(0), 1e-99d);
+		assertEquals(6, p.evaluate(1), 1e-99d);
+		assertEquals(11, p.evaluate(2), 1e-99d);
+	}
+
+	@Test
+	public void testEvaluateArray() {
+		final PolynomalFunction p = new PolynomalFunction(new double[] { 2, -3, 0, 5 });
+		final double[] xs = new double[1000];
+		final double[] out = new double[xs.length];
+
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = i * 0.01 - 5;
+		}
+
+		p.evaluate(xs, out);
+
+		for (int i = 0; i < xs.length; i++) {
+			final double x = xs[i];
+			assertEquals(2 * x * x * x - 3 * x * x + 5, out[i], 1e-9d);
+		}
+
+		// in place
+		p.evaluate(xs, xs);
+		assertArrayEquals(out, xs, 1e-99d);
+	}
+
+	@Test
+	public void testEvaluateCompensated() {
+		// (x - 1)^7 is very ill-conditioned near x = 1
+		final PolynomalFunction p = new PolynomalFunction(new double[] { 1, -7, 21, -35, 35, -21, 7, -1 });
+		final double x = 1.001;
+		final double expected = Math.pow(x - 1, 7);
+
+		assertEquals(expected, p.evaluateCompensated(x), Math.abs(expected) * 1e-6d);
+		assertEquals(1, p.evaluateCompensated(2), 1e-99d);
+	}
+
+	@Test
+	public void testEvaluateEmpty() {
+		final PolynomalFunction p = new PolynomalFunction(new double[0]);
+		final double[] xs = { 1, 2, 3 };
+		final double[] out = { 4, 5, 6 };
+
+		assertEquals(0, p.evaluate(2), 1e-99d);
+		assertEquals(0, p.evaluateCompensated(2), 1e-99d);
+		p.evaluate(xs, out);
+		assertArrayEquals(new double[3], out, 1e-99d);
+		p.evaluate(xs, xs);
+		assertArrayEquals(new double[3], xs, 1e-99d);
 	}
 
 	@Test
@@ -0,0 +1,102 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SolverMetricsTest {
+	@After
+	public void tearDown() {
+		Matrix.setSolveListener(null);
+	}
+
+	@Test
+	public void testInstall() throws JMException {
+		final SolverMetrics metrics = SolverMetrics.install();
+		assertSame(metrics, Matrix.getSolveListener());
+
+		new Matrix(new double[][] { { 0, 2, 4 }, { 1, 1, 3 } }).solve();
+		try {
+			new Matrix(new double[][] { { 1, 2, 3 }, { 2, 4, 6 } }).solve(Pivoting.PARTIAL);
+		} catch (final IllegalArgumentException e) {
+			// expected
+		}
+
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(SolverMetrics.OBJECT_NAME);
+		assertEquals(2L, server.getAttribute(name, "SolveCount"));
+		assertEquals(1L, server.getAttribute(name, "FailureCount"));
+		assertEquals(2L, server.getAttribute(name, "RowSwaps"));
+		assertEquals(2, server.getAttribute(name, "LastDimension"));
+		assertEquals(0d, server.getAttribute(name, "LastMinPivot"));
+
+		server.invoke(name, "reset", null, null);
+		assertEquals(0L, metrics.getSolveCount());
+		assertEquals(0, metrics.getLastDimension());
+		assertEquals(0d, metrics.getLastPivotGrowth(), 0d);
+		assertEquals(0d, metrics.getLastPivotRatio(), 0d);
+		server.unregisterMBean(name);
+	}
+
+	@Test
+	public void testMaxIgnoresFailures() {
+		final SolverMetrics metrics = new SolverMetrics();
+		Matrix.setSolveListener(metrics);
+
+		try {
+			new Matrix(new double[][] { { 1, 2, 3 }, { 2, 4, 6 } }).solve(Pivoting.PARTIAL);
+		} catch (final IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			new Matrix(new double[][] { { 0, 0, 1 }, { 0, 0, 1 } }).solve(Pivoting.PARTIAL);
+		} catch (final IllegalArgumentException e) {
+			// expected
+		}
+		new Matrix(new double[][] { { 1, 2, 5 }, { 4, 2, 6 } }).solve(Pivoting.PARTIAL);
+
+		assertEquals(3L, metrics.getSolveCount());
+		assertEquals(2L, metrics.getFailureCount());
+		assertEquals(1, metrics.getMaxPivotGrowth(), 1e-12d);
+		assertEquals(4 / 1.5, metrics.getMaxPivotRatio(), 1e-12d);
+	}
+
+	@Test
+	public void testStatistics() {
+		final List<SolveStatistics> result = new ArrayList<>();
+		Matrix.setSolveListener(result::add);
+
+		final Matrix matrix = new Matrix(new double[][] { { 1, 2, 5 }, { 4, 2, 6 } });
+		matrix.solve(Pivoting.PARTIAL);
+
+		assertEquals(1, result.size());
+		final SolveStatistics statistics = result.get(0);
+		assertEquals(true, statistics.isSuccessful());
+		assertEquals(Pivoting.PARTIAL, statistics.getPivoting());
+		assertEquals(2, statistics.getRows());
+		assertEquals(3, statistics.getColumns());
+		assertEquals(2, statistics.getPivots());
+		assertEquals(1, statistics.getRowSwaps());
+		// pivots 4 and 2 - 0.5 * 1 = 1.5
+		assertEquals(4, statistics.getMaxPivot(), 1e-12d);
+		assertEquals(1.5, statistics.getMinPivot(), 1e-12d);
+		assertEquals(1, statistics.getPivotGrowth(), 1e-12d);
+		assertEquals(4 / 1.5, statistics.getPivotRatio(), 1e-12d);
+
+		Matrix.setSolveListener(null);
+		matrix.solve();
+		assertEquals(1, result.size());
+		assertNull(Matrix.getSolveListener());
+	}
+}
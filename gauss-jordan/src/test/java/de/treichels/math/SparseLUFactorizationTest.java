@@ -0,0 +1,97 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SparseLUFactorizationTest {
+	/**
+	 * Create the 5-point Laplacian of a grid with randomly numbered nodes.
+	 */
+	static SparseMatrix createLaplacian(final int width, final long seed) {
+		final int n = width * width;
+		final Random random = new Random(seed);
+		final int[] numbers = new int[n];
+		for (int i = 0; i < n; i++) {
+			numbers[i] = i;
+		}
+
+		for (int i = n - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final int temp = numbers[i];
+			numbers[i] = numbers[j];
+			numbers[j] = temp;
+		}
+
+		final int[] rows = new int[5 * n];
+		final int[] columns = new int[5 * n];
+		final double[] values = new double[5 * n];
+		int count = 0;
+
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < width; y++) {
+				final int node = numbers[x * width + y];
+				rows[count] = node;
+				columns[count] = node;
+				values[count++] = 4;
+
+				final int[][] neighbors = { { x - 1, y }, { x + 1, y }, { x, y - 1 }, { x, y + 1 } };
+				for (final int[] neighbor : neighbors) {
+					if (neighbor[0] >= 0 && neighbor[0] < width && neighbor[1] >= 0 && neighbor[1] < width) {
+						rows[count] = node;
+						columns[count] = numbers[neighbor[0] * width + neighbor[1]];
+						values[count++] = -1;
+					}
+				}
+			}
+		}
+
+		return SparseMatrix.fromTriplets(n, n, Arrays.copyOf(rows, count), Arrays.copyOf(columns, count),
+				Arrays.copyOf(values, count));
+	}
+
+	@Test
+	public void testFillReduction() {
+		final SparseMatrix matrix = createLaplacian(20, 42);
+
+		final SparseLUFactorization natural = new SparseLUFactorization(matrix, false);
+		final SparseLUFactorization ordered = new SparseLUFactorization(matrix);
+
+		assertTrue(ordered.getNonZeros() < natural.getNonZeros() / 2);
+	}
+
+	@Test
+	public void testSolve() {
+		final SparseMatrix matrix = createLaplacian(15, 1);
+		final int n = matrix.getRows();
+		final double[] b = new double[n];
+		for (int i = 0; i < n; i++) {
+			b[i] = i % 7 - 3;
+		}
+
+		final double[] expected = new LUFactorization(matrix.toMatrix()).solve(b);
+
+		assertEquals(n, new SparseLUFactorization(matrix).getSize());
+		assertArrayEquals(expected, new SparseLUFactorization(matrix).solve(b), 1e-10d);
+		assertArrayEquals(expected, new SparseLUFactorization(matrix, false).solve(b), 1e-10d);
+	}
+
+	@Test
+	public void testSolvePivoting() {
+		// zero diagonal requires pivoting
+		final Matrix dense = new Matrix(new double[][] { { 0, 2, 0, 1 }, { 3, 0, 0, 0 }, { 0, 0, 0, 4 }, { 1, 0, 5, 0 } });
+		final double[] b = { 1, 2, 3, 4 };
+
+		assertArrayEquals(new LUFactorization(dense).solve(b), new SparseLUFactorization(new SparseMatrix(dense)).solve(b), 1e-12d);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSingular() {
+		new SparseLUFactorization(new SparseMatrix(new Matrix(new double[][] { { 1, 2, 0 }, { 2, 4, 0 }, { 0, 0, 1 } })));
+	}
+}
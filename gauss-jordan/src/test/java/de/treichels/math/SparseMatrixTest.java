@@ -0,0 +1,51 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SparseMatrixTest {
+	@Test
+	public void testFromTriplets() {
+		final SparseMatrix matrix = SparseMatrix.fromTriplets(3, 3, new int[] { 1, 0, 2, 1, 1, 2 }, new int[] { 2, 0, 0, 1, 2, 1 },
+				new double[] { 1, 5, 1, 3, 1, 0 });
+
+		assertEquals(3, matrix.getRows());
+		assertEquals(3, matrix.getColumns());
+		assertEquals(4, matrix.getNonZeros());
+		assertArrayEquals(new int[] { 0, 1, 3, 4 }, matrix.rowPointers);
+		assertArrayEquals(new int[] { 0, 1, 2, 0 }, matrix.columnIndices);
+		assertArrayEquals(new double[] { 5, 3, 2, 1 }, matrix.values, 1e-99d);
+		assertEquals(2, matrix.get(1, 2), 1e-99d);
+		assertEquals(0, matrix.get(2, 2), 1e-99d);
+	}
+
+	@Test
+	public void testMatrix() {
+		final Matrix dense = new Matrix(new double[][] { { 5, 0, 0 }, { 0, 3, 2 }, { 1, 0, 0 } });
+		final SparseMatrix matrix = new SparseMatrix(dense);
+
+		assertEquals(4, matrix.getNonZeros());
+		assertEquals(dense, matrix.toMatrix());
+
+		final double[] y = new double[3];
+		matrix.multiply(new double[] { 1, 2, 3 }, y);
+		assertArrayEquals(new double[] { 5, 12, 1 }, y, 1e-99d);
+	}
+
+	@Test
+	public void testTranspose() {
+		final Matrix dense = new Matrix(new double[][] { { 5, 0, 0, 4 }, { 0, 3, 2, 0 }, { 1, 0, 0, 0 } });
+		final SparseMatrix transposed = new SparseMatrix(dense).transpose();
+
+		assertEquals(4, transposed.getRows());
+		assertEquals(3, transposed.getColumns());
+
+		for (int row = 0; row < 3; row++) {
+			for (int column = 0; column < 4; column++) {
+				assertEquals(dense.get(row, column), transposed.get(column, row), 1e-99d);
+			}
+		}
+	}
+}
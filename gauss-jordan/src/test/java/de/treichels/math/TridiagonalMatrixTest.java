@@ -0,0 +1,56 @@
+package de.treichels.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TridiagonalMatrixTest {
+	@Test
+	public void testGet() {
+		final TridiagonalMatrix matrix = new TridiagonalMatrix(new double[] { 0, 1, 2 }, new double[] { 4, 5, 6 }, new double[] { 7, 8, 0 });
+
+		assertEquals(3, matrix.getSize());
+		assertEquals(4, matrix.get(0, 0), 1e-99d);
+		assertEquals(7, matrix.get(0, 1), 1e-99d);
+		assertEquals(0, matrix.get(0, 2), 1e-99d);
+		assertEquals(1, matrix.get(1, 0), 1e-99d);
+		assertEquals(8, matrix.get(1, 2), 1e-99d);
+		assertEquals(2, matrix.get(2, 1), 1e-99d);
+		assertEquals(0, matrix.get(2, 0), 1e-99d);
+	}
+
+	@Test
+	public void testSolve() {
+		final int size = 50;
+		final TridiagonalMatrix matrix = new TridiagonalMatrix(size);
+		final Matrix dense = new Matrix(size, size + 1);
+		final double[] rhs = new double[size];
+
+		for (int row = 0; row < size; row++) {
+			matrix.getDiagonal()[row] = 4 + row % 3;
+			dense.set(row, row, matrix.getDiagonal()[row]);
+
+			if (row > 0) {
+				matrix.getLower()[row] = 1 + row % 2;
+				dense.set(row, row - 1, matrix.getLower()[row]);
+			}
+
+			if (row < size - 1) {
+				matrix.getUpper()[row] = -1;
+				dense.set(row, row + 1, -1);
+			}
+
+			rhs[row] = row * 0.5 - 3;
+			dense.set(row, size, rhs[row]);
+		}
+
+		dense.solve();
+
+		assertArrayEquals(dense.getColumn(size), matrix.solve(rhs), 1e-12d);
+
+		// in place
+		matrix.solve(rhs, rhs);
+		assertArrayEquals(dense.getColumn(size), rhs, 1e-12d);
+	}
+}
@@ -0,0 +1,520 @@
+package charts;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.Arrays;
+
+import de.treichels.math.CubicSpline;
+import de.treichels.math.Decimator;
+import de.treichels.math.PolynomalFunction;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+/**
+ * <p>
+ * Variant of {@link CustomScatterChart} for very large point sets.
+ * </p>
+ * Instead of a group of nodes with their own event handlers per data point,
+ * points, connecting lines and the spline are drawn onto a single
+ * {@link Canvas}. The x values are kept in a sorted array, so hit-testing for
+ * hover, drag and context menu is a binary search. Moving a point only redraws
+ * the vertical strip of the segments that visibly changed. Where there are more
+ * points than pixels, only the points with the minimum and maximum y value of
+ * each pixel column are drawn.
+ *
+ * @author Oliver Treichel &lt;oli@treichels.de&gt;
+ */
+public class CanvasScatterChart extends XYChart<Number, Number> {
+	private final MenuItem add = new MenuItem("Add Point");
+	private final MenuItem del = new MenuItem("Delete Point");
+	private final ContextMenu contextMenu = new ContextMenu(add, del);
+	private final Tooltip tooltip = new Tooltip();
+	private final Canvas canvas = new Canvas();
+	/** x values of the data points in strictly ascending order */
+	private double[] xs = new double[0];
+	private double[] ys = new double[0];
+	/** spline through the data points, null for less than two points */
+	private CubicSpline spline;
+	/** selects the points to draw for the visible range */
+	private Decimator decimator;
+	/** axis bounds and sizes of the last full redraw */
+	private double[] layoutGeometry;
+	private double clickedX;
+	private double clickedY;
+	private int clickedIndex = -1;
+	private int dragIndex = -1;
+	private int hoverIndex = -1;
+	// mapping of data values to pixels: offset + (value - lower) * scale
+	private double xLower;
+	private double xOffset;
+	private double xScale;
+	private double yLower;
+	private double yOffset;
+	private double yScale;
+	private double radius;
+
+	public CanvasScatterChart(final NumberAxis xAxis, final NumberAxis yAxis) {
+		super(xAxis, yAxis);
+
+		setMinSize(500, 500);
+		setPrefSize(500, 500);
+		getPlotChildren().add(canvas);
+
+		/*** Event Handler ***/
+		// show add or delete context menu and save clicked point for later use
+		canvas.addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
+			if (e.getButton() == MouseButton.SECONDARY) {
+				clickedIndex = findPoint(e.getX(), e.getY());
+				clickedX = getDataValue(e.getX(), xAxis);
+				clickedY = getDataValue(e.getY(), yAxis);
+				add.setVisible(clickedIndex < 0);
+				del.setVisible(clickedIndex >= 0);
+				// disable menu item for first and last data point
+				del.setDisable(clickedIndex == 0 || clickedIndex == xs.length - 1);
+				contextMenu.show(canvas, e.getScreenX(), e.getScreenY());
+				e.consume();
+			}
+		});
+
+		// add action - add new data point on last clicked coordinates
+		add.setOnAction(e -> addDataPoint(clickedX, clickedY));
+
+		// delete action - remove data point of last clicked circle
+		del.setOnAction(e -> removeDataPoint(clickedIndex));
+
+		// turn circle orange when hovering over it
+		canvas.addEventHandler(MouseEvent.MOUSE_MOVED, e -> setHoverIndex(findPoint(e.getX(), e.getY())));
+
+		// turn circle back to transparent when exiting
+		canvas.addEventHandler(MouseEvent.MOUSE_EXITED, e -> setHoverIndex(-1));
+
+		// show tooltip
+		canvas.addEventHandler(MouseEvent.MOUSE_PRESSED, e -> {
+			if (e.getButton() == MouseButton.PRIMARY) {
+				contextMenu.hide();
+				dragIndex = findPoint(e.getX(), e.getY());
+				if (dragIndex >= 0) {
+					tooltip.setText(getTooltipText(dragIndex));
+					tooltip.show(canvas, e.getScreenX() + 10, e.getScreenY() + 10);
+				}
+			}
+		});
+
+		// hide tooltip
+		canvas.addEventHandler(MouseEvent.MOUSE_RELEASED, e -> {
+			dragIndex = -1;
+			tooltip.hide();
+		});
+
+		// update data value while dragging
+		canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, e -> {
+			if (e.getButton() == MouseButton.PRIMARY && dragIndex >= 0) {
+				final int index = dragIndex;
+				double newX = getDataValue(e.getX(), xAxis);
+				final double newY = getDataValue(e.getY(), yAxis);
+
+				// first and last data point keep their x value, the others
+				// stay between their neighbors
+				if (index == 0 || index == xs.length - 1 || newX <= xs[index - 1] || newX >= xs[index + 1]) {
+					newX = xs[index];
+				}
+
+				movePoint(index, newX, newY);
+
+				// update tooltip
+				tooltip.setText(getTooltipText(index));
+				tooltip.setAnchorX(e.getScreenX() + 10);
+				tooltip.setAnchorY(e.getScreenY() + 10);
+			}
+		});
+	}
+
+	/**
+	 * Add a data point. Points with an x value that already exists are
+	 * ignored, as the spline needs strictly ascending x values.
+	 *
+	 * @param x
+	 * @param y
+	 */
+	public void addDataPoint(final double x, final double y) {
+		final int n = xs.length;
+		int index = Arrays.binarySearch(xs, x);
+
+		if (index >= 0) {
+			return;
+		}
+
+		index = -index - 1;
+		final double[] newXs = new double[n + 1];
+		final double[] newYs = new double[n + 1];
+		System.arraycopy(xs, 0, newXs, 0, index);
+		System.arraycopy(ys, 0, newYs, 0, index);
+		newXs[index] = x;
+		newYs[index] = y;
+		System.arraycopy(xs, index, newXs, index + 1, n - index);
+		System.arraycopy(ys, index, newYs, index + 1, n - index);
+
+		setPoints(newXs, newYs);
+	}
+
+	@Override
+	protected void dataItemAdded(final Series<Number, Number> series, final int itemIndex, final Data<Number, Number> item) {
+		// data points are not stored in series
+	}
+
+	@Override
+	protected void dataItemChanged(final Data<Number, Number> item) {
+		// data points are not stored in series
+	}
+
+	@Override
+	protected void dataItemRemoved(final Data<Number, Number> item, final Series<Number, Number> series) {
+		// data points are not stored in series
+	}
+
+	/**
+	 * Draw everything within the vertical strip from left to right (in pixels)
+	 * from scratch.
+	 */
+	private void draw(final double left, final double right) {
+		final GraphicsContext gc = canvas.getGraphicsContext2D();
+		final double width = right - left;
+		final double height = canvas.getHeight();
+		final int n = xs.length;
+
+		gc.save();
+		gc.beginPath();
+		gc.rect(left, 0, width, height);
+		gc.clip();
+		gc.clearRect(left, 0, width, height);
+
+		if (n > 0) {
+			// points and segments that reach into the strip, at most two per
+			// pixel column
+			final double from = toValueX(left - radius - 1);
+			final double to = toValueX(right + radius + 1);
+			final int[] indices = decimator.decimate(min(from, to), max(from, to), (int) Math.ceil(width + 2 * radius + 2));
+
+			if (indices.length == 0) {
+				gc.restore();
+				return;
+			}
+
+			final int first = indices[0];
+			final int last = indices[indices.length - 1];
+
+			if (spline != null) {
+				final PolynomalFunction[] functions = spline.getFunctions();
+
+				// draw lines
+				gc.setStroke(Color.LIGHTGREY);
+				gc.setLineWidth(1);
+				gc.setLineDashes(10d, 8d, 2d, 8d);
+				gc.beginPath();
+				for (int i = 1; i < indices.length; i++) {
+					gc.moveTo(toDisplayX(xs[indices[i - 1]]), toDisplayY(ys[indices[i - 1]]));
+					gc.lineTo(toDisplayX(xs[indices[i]]), toDisplayY(ys[indices[i]]));
+				}
+				gc.stroke();
+
+				// draw spline
+				gc.setStroke(Color.BLUE);
+				gc.setLineDashes((double[]) null);
+				gc.beginPath();
+				gc.moveTo(toDisplayX(xs[first]), toDisplayY(ys[first]));
+				for (int segment = first; segment < last; segment++) {
+					final PolynomalFunction f = functions[segment];
+					final double range = xs[segment + 1] - xs[segment];
+					final int samples = CustomScatterChart.getSampleCount(f, range, xScale, yScale);
+
+					for (int i = 1; i <= samples; i++) {
+						final double x = range * i / samples;
+						gc.lineTo(toDisplayX(xs[segment] + x), toDisplayY(f.evaluate(x)));
+					}
+				}
+				gc.stroke();
+			}
+
+			// draw circles
+			final double diameter = 2 * radius;
+			gc.setStroke(Color.RED);
+			gc.setFill(Color.ORANGE);
+			for (final int i : indices) {
+				gc.strokeOval(toDisplayX(xs[i]) - radius, toDisplayY(ys[i]) - radius, diameter, diameter);
+			}
+
+			// the hovered point may have been left out
+			if (hoverIndex >= first && hoverIndex <= last) {
+				final double x = toDisplayX(xs[hoverIndex]) - radius;
+				final double y = toDisplayY(ys[hoverIndex]) - radius;
+				gc.fillOval(x, y, diameter, diameter);
+				gc.strokeOval(x, y, diameter, diameter);
+			}
+		}
+
+		gc.restore();
+	}
+
+	/**
+	 * Redraw the strip around the data point.
+	 */
+	private void drawPoint(final int index) {
+		if (index >= 0 && index < xs.length) {
+			final double x = toDisplayX(xs[index]);
+			draw(x - radius - 1, x + radius + 1);
+		}
+	}
+
+	/**
+	 * Find the data point under the mouse using a binary search on the x
+	 * values. Only the points within one radius of x are tested.
+	 *
+	 * @param x
+	 *            in pixels
+	 * @param y
+	 *            in pixels
+	 * @return the index of the nearest data point within one radius or -1
+	 */
+	private int findPoint(final double x, final double y) {
+		final int n = xs.length;
+		final double maxX = max(toValueX(x - radius), toValueX(x + radius));
+		double minDistance = radius * radius;
+		int result = -1;
+
+		for (int i = getLowerIndex(min(toValueX(x - radius), toValueX(x + radius))); i < n && xs[i] <= maxX; i++) {
+			final double dx = toDisplayX(xs[i]) - x;
+			final double dy = toDisplayY(ys[i]) - y;
+			final double distance = dx * dx + dy * dy;
+
+			if (distance <= minDistance) {
+				minDistance = distance;
+				result = i;
+			}
+		}
+
+		return result;
+	}
+
+	private double getDataValue(final double value, final NumberAxis axis) {
+		return min(axis.getUpperBound(), max(axis.getLowerBound(), axis.getValueForDisplay(value).doubleValue()));
+	}
+
+	/**
+	 * Get the number of data points.
+	 *
+	 * @return the number of data points
+	 */
+	public int getDataPointCount() {
+		return xs.length;
+	}
+
+	/**
+	 * Index of the first data point with an x value &gt;= x.
+	 */
+	private int getLowerIndex(final double x) {
+		final int index = Arrays.binarySearch(xs, x);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	private String getTooltipText(final int index) {
+		return String.format("%.2f, %.2f", xs[index], ys[index]);
+	}
+
+	@Override
+	protected void layoutPlotChildren() {
+		final NumberAxis xAxis = (NumberAxis) getXAxis();
+		final NumberAxis yAxis = (NumberAxis) getYAxis();
+		final double[] geometry = { xAxis.getLowerBound(), xAxis.getUpperBound(), xAxis.getWidth(), yAxis.getLowerBound(), yAxis.getUpperBound(),
+				yAxis.getHeight() };
+
+		if (Arrays.equals(geometry, layoutGeometry)) {
+			return;
+		}
+
+		layoutGeometry = geometry;
+		xLower = xAxis.getLowerBound();
+		xOffset = xAxis.getDisplayPosition(xLower);
+		xScale = xAxis.getScale();
+		yLower = yAxis.getLowerBound();
+		yOffset = yAxis.getDisplayPosition(yLower);
+		yScale = yAxis.getScale();
+		radius = 2 + min(xAxis.getWidth(), yAxis.getHeight()) / 200;
+
+		canvas.setWidth(xAxis.getWidth());
+		canvas.setHeight(yAxis.getHeight());
+
+		if (spline != null) {
+			// changes below half a pixel are invisible
+			spline.setTolerance(0.5 / abs(yScale));
+		}
+
+		draw(0, canvas.getWidth());
+	}
+
+	/**
+	 * Move a data point and redraw the segments that visibly changed.
+	 */
+	private void movePoint(final int index, final double x, final double y) {
+		final double oldX = xs[index];
+		xs[index] = x;
+		ys[index] = y;
+		decimator.update(index);
+
+		if (spline == null) {
+			draw(0, canvas.getWidth());
+			return;
+		}
+
+		spline.setPoint(index, x, y);
+
+		// the strip of the changed segments, the neighbors and the old position
+		int from = max(0, index - 1);
+		int to = min(xs.length - 1, index + 1);
+		if (spline.getChangedTo() >= 0) {
+			from = min(from, spline.getChangedFrom());
+			to = max(to, spline.getChangedTo() + 1);
+		}
+
+		final double left = min(toDisplayX(xs[from]), toDisplayX(oldX));
+		final double right = max(toDisplayX(xs[to]), toDisplayX(oldX));
+		draw(left - radius - 1, right + radius + 1);
+	}
+
+	/**
+	 * Remove a data point.
+	 *
+	 * @param index
+	 */
+	public void removeDataPoint(final int index) {
+		final int n = xs.length;
+		final double[] newXs = new double[n - 1];
+		final double[] newYs = new double[n - 1];
+		System.arraycopy(xs, 0, newXs, 0, index);
+		System.arraycopy(ys, 0, newYs, 0, index);
+		System.arraycopy(xs, index + 1, newXs, index, n - index - 1);
+		System.arraycopy(ys, index + 1, newYs, index, n - index - 1);
+
+		setPoints(newXs, newYs);
+	}
+
+	@Override
+	protected void seriesAdded(final Series<Number, Number> series, final int seriesIndex) {
+		// data points are not stored in series
+	}
+
+	@Override
+	protected void seriesRemoved(final Series<Number, Number> series) {
+		// data points are not stored in series
+	}
+
+	/**
+	 * Replace all data points at once. The arrays are copied.
+	 *
+	 * @param xs
+	 *            x values in strictly ascending order
+	 * @param ys
+	 *            y values
+	 * @throws IllegalArgumentException
+	 *             if the arrays have different lengths or the x values are not
+	 *             strictly ascending
+	 */
+	public void setDataPoints(final double[] xs, final double[] ys) {
+		final int n = xs.length;
+
+		if (ys.length != n) {
+			throw new IllegalArgumentException("malformed data, wrong dimensions!");
+		}
+
+		for (int i = 1; i < n; i++) {
+			if (!(xs[i] > xs[i - 1])) {
+				throw new IllegalArgumentException("malformed data, x values must be strictly ascending!");
+			}
+		}
+
+		setPoints(Arrays.copyOf(xs, n), Arrays.copyOf(ys, n));
+	}
+
+	private void setHoverIndex(final int index) {
+		if (index != hoverIndex) {
+			final int oldIndex = hoverIndex;
+			hoverIndex = index;
+			drawPoint(oldIndex);
+			drawPoint(index);
+		}
+	}
+
+	/**
+	 * Take over the (already validated) arrays, rebuild the spline and redraw.
+	 */
+	private void setPoints(final double[] xs, final double[] ys) {
+		this.xs = xs;
+		this.ys = ys;
+		decimator = new Decimator(xs, ys);
+		hoverIndex = -1;
+		dragIndex = -1;
+
+		if (xs.length > 1) {
+			spline = new CubicSpline(xs, ys);
+			if (yScale != 0) {
+				spline.setTolerance(0.5 / abs(yScale));
+			}
+		} else {
+			spline = null;
+		}
+
+		// the axes may need a new range, otherwise just redraw
+		layoutGeometry = null;
+		updateAxisRange();
+		requestChartLayout();
+	}
+
+	private double toDisplayX(final double x) {
+		return xOffset + (x - xLower) * xScale;
+	}
+
+	private double toDisplayY(final double y) {
+		return yOffset + (y - yLower) * yScale;
+	}
+
+	private double toValueX(final double x) {
+		return xLower + (x - xOffset) / xScale;
+	}
+
+	/**
+	 * Auto ranging axes only need the extremes of the data, not all values.
+	 */
+	@Override
+	protected void updateAxisRange() {
+		final NumberAxis xAxis = (NumberAxis) getXAxis();
+		final NumberAxis yAxis = (NumberAxis) getYAxis();
+		final int n = xs.length;
+
+		if (n == 0) {
+			return;
+		}
+
+		if (xAxis.isAutoRanging()) {
+			xAxis.invalidateRange(Arrays.<Number>asList(xs[0], xs[n - 1]));
+		}
+
+		if (yAxis.isAutoRanging()) {
+			double minY = ys[0];
+			double maxY = ys[0];
+			for (final double y : ys) {
+				minY = min(minY, y);
+				maxY = max(maxY, y);
+			}
+			yAxis.invalidateRange(Arrays.<Number>asList(minY, maxY));
+		}
+	}
+}
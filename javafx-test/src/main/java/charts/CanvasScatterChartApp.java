@@ -0,0 +1,42 @@
+package charts;
+
+import java.util.Random;
+
+import javafx.application.Application;
+import javafx.scene.Scene;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.layout.BorderPane;
+import javafx.stage.Stage;
+
+public class CanvasScatterChartApp extends Application {
+	private static final int POINTS = 100000;
+
+	public static void main(final String[] args) {
+		launch(args);
+	}
+
+	@Override
+	public void start(final Stage stage) throws Exception {
+		final NumberAxis xAxis = new NumberAxis("X Axis", -100, 100, 10);
+		final NumberAxis yAxis = new NumberAxis("Y Axis", -100, 100, 10);
+		final CanvasScatterChart chart = new CanvasScatterChart(xAxis, yAxis);
+
+		// noisy sine wave
+		final Random random = new Random(0);
+		final double[] xs = new double[POINTS];
+		final double[] ys = new double[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			xs[i] = xAxis.getLowerBound() + (xAxis.getUpperBound() - xAxis.getLowerBound()) * i / (POINTS - 1);
+			ys[i] = 50 * Math.sin(xs[i] / 10) + random.nextGaussian() * 5;
+		}
+
+		chart.setDataPoints(xs, ys);
+		chart.setLegendVisible(false);
+
+		final Scene scene = new Scene(new BorderPane(chart));
+
+		stage.setTitle("Canvas Scatter Chart Sample");
+		stage.setScene(scene);
+		stage.show();
+	}
+}
@@ -1,11 +1,20 @@
 package charts;
 
+import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
-import de.treichels.math.Matrix;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import de.treichels.math.CubicSpline;
 import de.treichels.math.PolynomalFunction;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.scene.Group;
 import javafx.scene.Node;
@@ -22,8 +31,45 @@ import javafx.scene.shape.Line;
 import javafx.scene.shape.LineTo;
 import javafx.scene.shape.MoveTo;
 import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
 
 public class CustomScatterChart extends ScatterChart<Number, Number> {
+	/**
+	 * Immutable snapshot of the data points to calculate a spline for.
+	 */
+	private static final class SplineRequest {
+		private final double[] xs;
+		private final double[] ys;
+		private final double tolerance;
+
+		private SplineRequest(final double[] xs, final double[] ys, final double tolerance) {
+			this.xs = xs;
+			this.ys = ys;
+			this.tolerance = tolerance;
+		}
+	}
+
+	/**
+	 * Calculated spline segments from..to (inclusive) of a {@link SplineRequest}.
+	 * The functions are copies, so they can be handed to the FX thread.
+	 */
+	private static final class SplineResult {
+		private final SplineRequest request;
+		private final boolean full;
+		private final int from;
+		private final PolynomalFunction[] functions;
+
+		private SplineResult(final SplineRequest request, final boolean full, final int from, final PolynomalFunction[] functions) {
+			this.request = request;
+			this.full = full;
+			this.from = from;
+			this.functions = functions;
+		}
+	}
+
+	/** maximum distance between the drawn lines and the spline in pixels */
+	static final double SAMPLING_TOLERANCE = 0.25;
+
 	private final MenuItem add = new MenuItem("Add Point");
 	private final MenuItem del = new MenuItem("Delete Point");
 	private final ContextMenu contextMenu = new ContextMenu(add, del);
@@ -32,7 +78,26 @@ public class CustomScatterChart extends ScatterChart<Number, Number> {
 	private double clickedX;
 	private double clickedY;
 	private Node clickedSymbol;
+	/** axis bounds and sizes of the last full layout */
+	private double[] layoutGeometry;
+	/** data values of the last spline request, null after points were added or removed */
+	private SplineRequest requested;
+	/** the spline that is drawn, may lag behind the data points */
+	private SplineRequest drawn;
 	private PolynomalFunction[] functions;
+	/** latest request that was not picked up by the background thread yet */
+	private final AtomicReference<SplineRequest> pending = new AtomicReference<>();
+	/**
+	 * single background thread that ends when idle, so no thread is left behind
+	 * when the chart is discarded
+	 */
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+		final Thread thread = new Thread(r, "spline");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/** spline of the background thread, updated incrementally while dragging */
+	private CubicSpline spline;
 
 	public CustomScatterChart(final NumberAxis xAxis, final NumberAxis yAxis) {
 		super(xAxis, yAxis);
@@ -43,6 +108,11 @@ public class CustomScatterChart extends ScatterChart<Number, Number> {
 		// add series
 		getData().add(new Series<>("Data Points", dataList));
 
+		// added or removed points need a full layout
+		dataList.addListener((ListChangeListener<Data<Number, Number>>) c -> requested = null);
+
+		executor.allowCoreThreadTimeOut(true);
+
 		/*** Event Handler ***/
 		// show add context menu and save clicked coordinates for later use
 		addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
@@ -58,13 +128,18 @@ public class CustomScatterChart extends ScatterChart<Number, Number> {
 
 		// add action - add new data point on last clicked coordinates
 		add.setOnAction(e -> {
+			// the spline needs strictly ascending x values
+			if (dataList.stream().anyMatch(d -> d.getXValue().doubleValue() == clickedX)) {
+				return;
+			}
+
 			final int index = dataList.stream().filter(d -> d.getXValue().doubleValue() > clickedX).findFirst().map(d -> dataList.indexOf(d)).orElse(0);
 			addDataPoint(index, clickedX, clickedY);
 		});
 
 		// delete action - remove data point of last clicked circle
 		del.setOnAction(e -> {
-			dataList.removeIf(d -> ((Group) d.getNode()).getChildren().get(0) == clickedSymbol);
+			dataList.removeIf(d -> d.getNode() == clickedSymbol.getParent());
 		});
 	}
 
@@ -170,165 +245,306 @@ public class CustomScatterChart extends ScatterChart<Number, Number> {
 		return axis.getDisplayPosition(number);
 	}
 
-	@Override
-	protected void layoutPlotChildren() {
-		final NumberAxis xAxis = (NumberAxis) getXAxis();
-		final NumberAxis yAxis = (NumberAxis) getYAxis();
+	/**
+	 * Calculate the spline of the pending request on the background thread and
+	 * publish the result on the FX thread. Requests that arrived in the
+	 * meantime were replaced by the latest one.
+	 */
+	private void computePending() {
+		final SplineRequest request = pending.getAndSet(null);
 
-		// create polynomals
-		final int n = dataList.size();
-		functions = new PolynomalFunction[n - 1];
-		for (int i = 0; i < n - 1; i++) {
-			// ax^3 + bx^2 + cx + d
-			final PolynomalFunction f = new PolynomalFunction(3);
-			functions[i] = f;
-
-			// di = yi
-			final double di = dataList.get(i).getYValue().doubleValue();
-			f.getCoefficients()[3] = di;
+		if (request != null) {
+			final SplineResult result = computeSpline(request);
+
+			if (result != null) {
+				Platform.runLater(() -> publish(result));
+			}
 		}
+	}
 
-		// create coefficent matrix
-		final int rows = n - 2;
-		final int columns = n - 1;
-		final Matrix matrix = new Matrix(rows, columns);
+	/**
+	 * Apply a request to the spline of the background thread. If only data
+	 * values changed, the spline is updated incrementally and only the visibly
+	 * changed segments are returned.
+	 *
+	 * @return the changed segments or null if nothing visibly changed
+	 */
+	private SplineResult computeSpline(final SplineRequest request) {
+		final int n = request.xs.length;
+
+		if (spline != null && spline.getPointCount() == n) {
+			spline.setTolerance(request.tolerance);
+
+			try {
+				int from = Integer.MAX_VALUE;
+				int to = -1;
+
+				for (int i = 0; i < n; i++) {
+					if (request.xs[i] != spline.getX(i) || request.ys[i] != spline.getY(i)) {
+						spline.setPoint(i, request.xs[i], request.ys[i]);
+
+						if (spline.getChangedTo() >= 0) {
+							from = min(from, spline.getChangedFrom());
+							to = max(to, spline.getChangedTo());
+						}
+					}
+				}
+
+				return to < 0 ? null : new SplineResult(request, false, from, copyFunctions(from, to));
+			} catch (final IllegalArgumentException e) {
+				// points changed their order
+			}
+		}
 
-		// fill and solve matrix only for 3 point or more
-		if (rows > 0) {
-			for (int i = 1; i < n - 1; i++) {
-				final double[] row = matrix.getData()[i - 1];
+		try {
+			spline = new CubicSpline(request.xs, request.ys);
+		} catch (final IllegalArgumentException e) {
+			spline = null;
+			return null;
+		}
+
+		spline.setTolerance(request.tolerance);
+		return new SplineResult(request, true, 0, copyFunctions(0, n - 2));
+	}
 
-				final Data<Number, Number> dataim1 = dataList.get(i - 1);
-				final Data<Number, Number> datai = dataList.get(i);
-				final Data<Number, Number> dataip1 = dataList.get(i + 1);
+	private PolynomalFunction[] copyFunctions(final int from, final int to) {
+		final PolynomalFunction[] source = spline.getFunctions();
+		final PolynomalFunction[] result = new PolynomalFunction[to - from + 1];
+
+		for (int i = from; i <= to; i++) {
+			result[i - from] = new PolynomalFunction(source[i]);
+		}
 
-				final double xim1 = dataim1.getXValue().doubleValue();
-				final double xi = datai.getXValue().doubleValue();
-				final double xip1 = dataip1.getXValue().doubleValue();
+		return result;
+	}
+
+	/**
+	 * Get the nodes of a segment: line, path and circle (in this order, so the
+	 * circle stays on top and receives the mouse events). Line and path are
+	 * stored in the group of the right data point and created if they don't
+	 * exist yet.
+	 */
+	private ObservableList<Node> getSegmentNodes(final int segment) {
+		final ObservableList<Node> nodes = ((Group) dataList.get(segment + 1).getNode()).getChildren();
+
+		if (nodes.size() != 3) {
+			final Line line = new Line();
+			line.setStroke(Color.LIGHTGREY);
+			line.getStrokeDashArray().addAll(10d, 8d, 2d, 8d);
+			final Path path = new Path();
+			path.setStroke(Color.BLUE);
+			nodes.addAll(0, Arrays.asList(line, path));
+		}
+
+		return nodes;
+	}
+
+	@Override
+	protected void layoutPlotChildren() {
+		final NumberAxis xAxis = (NumberAxis) getXAxis();
+		final NumberAxis yAxis = (NumberAxis) getYAxis();
+		final double[] geometry = { xAxis.getLowerBound(), xAxis.getUpperBound(), xAxis.getWidth(), yAxis.getLowerBound(), yAxis.getUpperBound(),
+				yAxis.getHeight() };
+		final int n = dataList.size();
+		final double[] xs = new double[n];
+		final double[] ys = new double[n];
 
-				final double yim1 = dataim1.getYValue().doubleValue();
-				final double yi = datai.getYValue().doubleValue();
-				final double yip1 = dataip1.getYValue().doubleValue();
+		for (int i = 0; i < n; i++) {
+			final Data<Number, Number> datai = dataList.get(i);
+			xs[i] = datai.getXValue().doubleValue();
+			ys[i] = datai.getYValue().doubleValue();
+		}
 
-				if (i > 1) {
-					row[i - 2] = xi - xim1;
+		if (requested != null && requested.xs.length == n && Arrays.equals(geometry, layoutGeometry)) {
+			// only the data values changed (e.g. dragging): move the changed
+			// points and lines, the spline follows when it is calculated
+			boolean changed = false;
+
+			for (int i = 0; i < n; i++) {
+				if (xs[i] != requested.xs[i] || ys[i] != requested.ys[i]) {
+					changed = true;
+					layoutSymbol(i);
+					if (i > 0) {
+						layoutLine(i - 1);
+					}
+					if (i < n - 1) {
+						layoutLine(i);
+					}
 				}
+			}
 
-				row[i - 1] = 2 * (xip1 - xim1);
+			if (!changed) {
+				return;
+			}
+		} else {
+			layoutGeometry = geometry;
 
-				if (i < n - 2) {
-					row[i] = xip1 - xi;
+			// update symbol positions, reusing the existing nodes
+			for (int i = 0; i < n; i++) {
+				layoutSymbol(i);
+
+				if (i == 0) {
+					// the first point may have been the second one before
+					final ObservableList<Node> nodes = ((Group) dataList.get(i).getNode()).getChildren();
+					nodes.remove(0, nodes.size() - 1);
+				} else {
+					layoutLine(i - 1);
 				}
+			}
 
-				row[columns - 1] = 3 * ((yip1 - yi) / (xip1 - xi) - (yi - yim1) / (xi - xim1));
+			// redraw the previous spline for the new geometry, if it still
+			// fits the data points
+			if (functions != null && functions.length == n - 1) {
+				for (int segment = 0; segment < n - 1; segment++) {
+					layoutCurve(segment);
+				}
 			}
+		}
 
-			// System.out.println(matrix);
-			matrix.solve();
-			// System.out.println(matrix);
+		// changes below half a pixel are invisible
+		requested = new SplineRequest(xs, ys, 0.5 / abs(yAxis.getScale()));
+		if (n > 1 && pending.getAndSet(requested) == null) {
+			executor.execute(this::computePending);
 		}
+	}
 
-		// get bi from solved matrix
-		for (int i = 0; i < n - 1; i++) {
-			final PolynomalFunction f = functions[i];
+	/**
+	 * Move the circle of a data point to its position.
+	 */
+	private void layoutSymbol(final int index) {
+		final NumberAxis xAxis = (NumberAxis) getXAxis();
+		final NumberAxis yAxis = (NumberAxis) getYAxis();
+		final Data<Number, Number> dataPoint = dataList.get(index);
+		final ObservableList<Node> nodes = ((Group) dataPoint.getNode()).getChildren();
+		final Circle circle = (Circle) nodes.get(nodes.size() - 1);
 
-			final double bi = i == 0 ? 0 : matrix.get(i - 1, columns - 1);
+		circle.setRadius(2 + min(xAxis.getWidth(), yAxis.getHeight()) / 200);
+		circle.setCenterX(getDisplayPosition(dataPoint.getXValue(), xAxis));
+		circle.setCenterY(getDisplayPosition(dataPoint.getYValue(), yAxis));
+	}
 
-			f.getCoefficients()[1] = bi;
+	/**
+	 * Draw the spline between the data points segment and segment + 1, as
+	 * calculated by the last published result.
+	 */
+	private void layoutCurve(final int segment) {
+		final NumberAxis xAxis = (NumberAxis) getXAxis();
+		final NumberAxis yAxis = (NumberAxis) getYAxis();
+		final Path path = (Path) getSegmentNodes(segment).get(1);
+
+		// draw spline, updating the existing path elements in place
+		final PolynomalFunction f = functions[segment];
+		final double x0 = drawn.xs[segment];
+		final double range = drawn.xs[segment + 1] - x0;
+		final double startX = xAxis.getDisplayPosition(x0);
+		final double startY = yAxis.getDisplayPosition(drawn.ys[segment]);
+		final double xScale = xAxis.getScale();
+		final double yScale = yAxis.getScale();
+		final int samples = getSampleCount(f, range, xScale, yScale);
+		final ObservableList<PathElement> elements = path.getElements();
+
+		for (int i = 0; i <= samples; i++) {
+			// relative to the start point, so no numbers need to be boxed
+			final double x = range * i / samples;
+			final double toX1 = startX + x * xScale;
+			final double toY1 = startY + (f.evaluate(x) - drawn.ys[segment]) * yScale;
+
+			if (i < elements.size()) {
+				final PathElement element = elements.get(i);
+				if (i == 0) {
+					((MoveTo) element).setX(toX1);
+					((MoveTo) element).setY(toY1);
+				} else {
+					((LineTo) element).setX(toX1);
+					((LineTo) element).setY(toY1);
+				}
+			} else if (i == 0) {
+				elements.add(new MoveTo(toX1, toY1));
+			} else {
+				elements.add(new LineTo(toX1, toY1));
+			}
 		}
 
-		// calculate ai and ci
-		for (int i = 0; i < n - 1; i++) {
-			final Data<Number, Number> datai = dataList.get(i);
-			final Data<Number, Number> dataip1 = dataList.get(i + 1);
-
-			final double xi = datai.getXValue().doubleValue();
-			final double xip1 = dataip1.getXValue().doubleValue();
+		if (elements.size() > samples + 1) {
+			elements.remove(samples + 1, elements.size());
+		}
+	}
 
-			final double yi = datai.getYValue().doubleValue();
-			final double yip1 = dataip1.getYValue().doubleValue();
+	/**
+	 * Draw the line between the data points segment and segment + 1.
+	 */
+	private void layoutLine(final int segment) {
+		final NumberAxis xAxis = (NumberAxis) getXAxis();
+		final NumberAxis yAxis = (NumberAxis) getYAxis();
+		final Data<Number, Number> from = dataList.get(segment);
+		final Data<Number, Number> to = dataList.get(segment + 1);
+		final Line line = (Line) getSegmentNodes(segment).get(0);
+
+		line.setStartX(getDisplayPosition(from.getXValue(), xAxis));
+		line.setStartY(getDisplayPosition(from.getYValue(), yAxis));
+		line.setEndX(getDisplayPosition(to.getXValue(), xAxis));
+		line.setEndY(getDisplayPosition(to.getYValue(), yAxis));
+	}
 
-			final PolynomalFunction fi = functions[i];
+	/**
+	 * Take over a spline calculated in the background and redraw its changed
+	 * segments. Runs on the FX thread.
+	 */
+	private void publish(final SplineResult result) {
+		final int n = result.request.xs.length;
+
+		if (result.full) {
+			functions = result.functions;
+		} else if (functions != null && functions.length == n - 1) {
+			System.arraycopy(result.functions, 0, functions, result.from, result.functions.length);
+		} else {
+			return;
+		}
 
-			final double bi = fi.getCoefficients()[1];
-			final double bip1;
-			if (i < n - 2) {
-				final PolynomalFunction fip1 = functions[i + 1];
-				bip1 = fip1.getCoefficients()[1];
-			} else {
-				bip1 = 0;
-			}
+		drawn = result.request;
 
-			final double ai = (bip1 - bi) / 3 / (xip1 - xi);
-			final double ci = (yip1 - yi) / (xip1 - xi) - (bip1 - bi) * (xip1 - xi) / 3 - bi * (xip1 - xi);
-			fi.getCoefficients()[0] = ai;
-			fi.getCoefficients()[2] = ci;
+		// points were added or removed since, a newer result will follow
+		if (layoutGeometry == null || dataList.size() != n) {
+			return;
 		}
 
-		// for (int i = 0; i < n - 1; i++) {
-		// System.out.printf("f[%d]=%s\n", i, functions[i]);
-		// }
-
-		// update symbol positions
-		Number x0 = null;
-		double fromX = 0;
-		double fromY = 0;
-
-		for (int i = 0; i < dataList.size(); i++) {
-			final Data<Number, Number> dataPoint = dataList.get(i);
-
-			final ObservableList<Node> nodes = ((Group) dataPoint.getNode()).getChildren();
-			nodes.remove(1, nodes.size());
-			final Circle circle = (Circle) nodes.get(0);
-
-			final Number x1 = dataPoint.getXValue();
-			final Number y1 = dataPoint.getYValue();
-			final double toX = getDisplayPosition(x1, xAxis);
-			final double toY = getDisplayPosition(y1, yAxis);
-			final double radius = 2 + min(xAxis.getWidth(), yAxis.getHeight()) / 200;
-
-			// update circle
-			circle.setRadius(radius);
-			circle.setCenterX(toX);
-			circle.setCenterY(toY);
-			circle.toFront();
-
-			if (i > 0) {
-				// draw line
-				final Line line = new Line();
-				line.setStartX(fromX);
-				line.setStartY(fromY);
-				line.setEndX(toX);
-				line.setEndY(toY);
-				line.setStroke(Color.LIGHTGREY);
-				line.getStrokeDashArray().addAll(10d, 8d, 2d, 8d);
-				line.toBack();
-				nodes.add(line);
-
-				// draw spline
-				final PolynomalFunction f = functions[i - 1];
-				final Path path = new Path();
-				final int range = x1.intValue() - x0.intValue();
-				for (int x = 0; x <= range; x++) {
-					final double y = f.evaluate(x);
-					final double toX1 = getDisplayPosition(x + x0.intValue(), xAxis);
-					final double toY1 = getDisplayPosition(y, yAxis);
-
-					if (x == 0) {
-						path.getElements().add(new MoveTo(toX1, toY1));
-					} else {
-						path.getElements().add(new LineTo(toX1, toY1));
-					}
-				}
-				path.setStroke(Color.BLUE);
-				path.toBack();
-				nodes.add(path);
-			}
+		for (int segment = result.from; segment < result.from + result.functions.length; segment++) {
+			layoutCurve(segment);
+		}
+	}
 
-			// save current values for next loop
-			x0 = x1;
-			fromX = toX;
-			fromY = toY;
+	/**
+	 * <p>
+	 * Calculate the number of line segments needed to draw a spline segment
+	 * within {@link #SAMPLING_TOLERANCE}.
+	 * </p>
+	 * The distance between a curve and its chord of width h is at most
+	 * h<sup>2</sup>/8 max|f''|. For a cubic, f'' is linear, so its maximum is
+	 * at one of the ends. Flat segments need a single line, curved ones more,
+	 * but never more than one per pixel column.
+	 *
+	 * @param f
+	 *            the spline segment
+	 * @param range
+	 *            the width of the segment in x units
+	 * @param xScale
+	 *            pixels per x unit
+	 * @param yScale
+	 *            pixels per y unit
+	 * @return the number of line segments
+	 */
+	static int getSampleCount(final PolynomalFunction f, final double range, final double xScale, final double yScale) {
+		final double[] coefficients = f.getCoefficients();
+		final double a = coefficients[0];
+		final double b = coefficients[1];
+		final double curvature = max(abs(2 * b), abs(6 * a * range + 2 * b)) * abs(yScale);
+		final double pixels = range * abs(xScale);
+
+		if (curvature == 0) {
+			return 1;
 		}
+
+		final double step = Math.sqrt(8 * SAMPLING_TOLERANCE / curvature);
+		return (int) max(1, min(Math.ceil(pixels), Math.ceil(range / step)));
 	}
 }
@@ -1,63 +1,110 @@
 package charts;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.treichels.math.Decimator;
 import javafx.application.Application;
-import javafx.scene.Node;
+import javafx.beans.InvalidationListener;
 import javafx.scene.Scene;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart.Data;
 import javafx.scene.chart.XYChart.Series;
-import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 
 public class LineChartSample extends Application {
+	private static final int POINTS = 1000000;
+
 	public static void main(final String[] args) {
 		launch(args);
 	}
 
+	private double dragX;
+
 	@Override
 	public void start(final Stage stage) throws Exception {
 		stage.setTitle("Line Chart Sample");
 
-		// defining the axes
-		final NumberAxis xAxis = new NumberAxis();
+		// defining the axes, the x axis is zoomed and panned with the mouse
+		final NumberAxis xAxis = new NumberAxis(0, POINTS, POINTS / 10);
 		final NumberAxis yAxis = new NumberAxis();
-		xAxis.setLabel("Number of Month");
+		xAxis.setLabel("Sample");
+		yAxis.setForceZeroInRange(false);
 
 		// creating the chart
 		final LineChart<Number, Number> lineChart = new LineChart<>(xAxis, yAxis);
 
-		lineChart.setTitle("Stock Monitoring, 2010");
+		lineChart.setTitle("Telemetry");
+		lineChart.setCreateSymbols(false);
+		lineChart.setAnimated(false);
 
 		// defining a series
 		final Series<Number, Number> series = new Series<>();
-		series.setName("My portfolio");
-
-		// populating the series with data
-		series.getData().add(new Data<>(1, 23));
-		series.getData().add(new Data<>(2, 14));
-		series.getData().add(new Data<>(3, 15));
-		series.getData().add(new Data<>(4, 24));
-		series.getData().add(new Data<>(5, 34));
-		series.getData().add(new Data<>(6, 36));
-		series.getData().add(new Data<>(7, 22));
-		series.getData().add(new Data<>(8, 45));
-		series.getData().add(new Data<>(9, 43));
-		series.getData().add(new Data<>(10, 17));
-		series.getData().add(new Data<>(11, 29));
-		series.getData().add(new Data<>(12, 25));
+		series.setName("Random walk");
 
-		final Scene scene = new Scene(lineChart, 800, 600);
-		lineChart.getData().add(series);
+		// populating the arrays with telemetry like data
+		final Random random = new Random(0);
+		final double[] xs = new double[POINTS];
+		final double[] ys = new double[POINTS];
+		for (int i = 1; i < POINTS; i++) {
+			xs[i] = i;
+			ys[i] = ys[i - 1] + random.nextGaussian();
+		}
 
-		for (final Data<Number, Number> data : series.getData()) {
-			final Node node = data.getNode();
-			if (node != null) {
-				node.addEventHandler(MouseEvent.MOUSE_ENTERED, event -> System.out.println(event));
+		// only pass the points to the chart that are visible with the current
+		// range and width
+		final Decimator decimator = new Decimator(xs, ys);
+		final InvalidationListener update = o -> {
+			// the bounds are set one after the other
+			if (xAxis.getUpperBound() <= xAxis.getLowerBound()) {
+				return;
 			}
-		}
+
+			final int[] indices = decimator.decimate(xAxis.getLowerBound(), xAxis.getUpperBound(), Math.max(1, (int) xAxis.getWidth()));
+			final List<Data<Number, Number>> data = new ArrayList<>(indices.length);
+			for (final int i : indices) {
+				data.add(new Data<>(xs[i], ys[i]));
+			}
+			series.getData().setAll(data);
+		};
+		xAxis.lowerBoundProperty().addListener(update);
+		xAxis.upperBoundProperty().addListener(update);
+		xAxis.widthProperty().addListener(update);
+		update.invalidated(null);
+
+		// zoom around the mouse position
+		lineChart.setOnScroll(e -> {
+			final double factor = e.getDeltaY() > 0 ? 0.8 : 1.25;
+			final double center = xAxis.getValueForDisplay(xAxis.sceneToLocal(e.getSceneX(), e.getSceneY()).getX()).doubleValue();
+			setRange(xAxis, center - (center - xAxis.getLowerBound()) * factor, center + (xAxis.getUpperBound() - center) * factor);
+		});
+
+		// pan by dragging
+		lineChart.setOnMousePressed(e -> dragX = e.getX());
+		lineChart.setOnMouseDragged(e -> {
+			final double shift = (dragX - e.getX()) / xAxis.getScale();
+			dragX = e.getX();
+			setRange(xAxis, xAxis.getLowerBound() + shift, xAxis.getUpperBound() + shift);
+		});
+
+		final Scene scene = new Scene(lineChart, 800, 600);
+		lineChart.getData().add(series);
 
 		stage.setScene(scene);
 		stage.show();
 	}
+
+	/**
+	 * Set the range of the x axis, limited to the samples.
+	 */
+	private void setRange(final NumberAxis xAxis, final double lower, final double upper) {
+		final double width = Math.min(POINTS, Math.max(10, upper - lower));
+		final double from = Math.min(POINTS - width, Math.max(0, lower));
+
+		xAxis.setTickUnit(width / 10);
+		xAxis.setLowerBound(from);
+		xAxis.setUpperBound(from + width);
+	}
 }